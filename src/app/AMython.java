@@ -86,30 +86,133 @@ package app;
  * ##########################################################################################################################
  */
 
+import closure.ClosureInterpreter;
+import entity.BufferedSink;
+import entity.FrontEnd;
 import entity.Interpreter;
+import entity.MemoCache;
+import entity.OutputSink;
+import entity.Parser;
 import entity.Reader;
+import entity.ScriptCache;
+import entity.Source;
 import exception.NameError;
+import exception.RecursionError;
 import exception.SyntaxError;
 import exception.TypeError;
 import exception.ZeroDivisionError;
+import stackless.StacklessInterpreter;
+import vm.VirtualMachine;
 
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Paths;
 
 /**
  *  Application Entrance (along with 'cast_test' file for language illustration)
+ *  Usage: java AMython [option] filename
+ *    options:
+ *      -vm       compile program into bytecode and run it on the VirtualMachine
+ *      -closure  convert program into pre-linked evaluators (closure compilation) and run them
+ *      -stackless  run program with the call stack kept on the heap, deep recursion does not overflow the Java stack
+ *      -recursionlimit=N  maximum depth of nested calls in -stackless mode before RecursionError is raised
+ *      -memosize=N  number of results cached per memoized pure function, 0 turns memoization off (nomemo pragma opts a function out)
+ *      -memostats  print hit/miss/eviction counts of memoized functions after the run
+ *      -stream   run each top level statement on the tree-walking Interpreter as soon as it is parsed (no memoization)
+ *      -lazy     tree-walking Interpreter only: parse body of function/lambda on its first call (not memoized)
+ *      -jobs=N   threads lexing and parsing a program of 1 MB or more (number of cores by default, 1 to stay sequential)
+ *      -cache[=DIR]  keep parsed and optimized program in DIR (~/.amython/cache by default) for the next run of the same script
+ *      (none)    run program on the tree-walking Interpreter
  */
 public class AMython {
+    private static final String USAGE = "Usage: javac AMython [-vm | -closure | -stackless [-recursionlimit=N] | -stream] [-lazy] [-jobs=N] [-cache[=DIR]] [-memosize=N] [-memostats] [-flush=line|full] filename.";
+
     public static void main(String[] args) throws IOException {
-        if (args.length != 1) {
-            throw new RuntimeException("Usage: javac AMython filename.");
+        String filename = null;
+        String mode = null;
+        int recursionLimit = StacklessInterpreter.DEFAULT_RECURSION_LIMIT;
+        boolean memoStats = false;
+        boolean stream = false;
+        boolean lazy = false;
+        for (String arg : args) {
+            if (mode == null && (arg.equals("-vm") || arg.equals("-closure") || arg.equals("-stackless"))) {
+                mode = arg;
+            } else if (arg.startsWith("-recursionlimit=")) {
+                recursionLimit = intOption(arg);
+            } else if (arg.startsWith("-jobs=")) {
+                FrontEnd.getFrontEnd().setParallelism(intOption(arg));
+            } else if (arg.equals("-cache")) {
+                ScriptCache.getCache().setDirectory(Paths.get(System.getProperty("user.home"), ".amython", "cache"));
+            } else if (arg.startsWith("-cache=")) {
+                ScriptCache.getCache().setDirectory(Paths.get(arg.substring(arg.indexOf('=')+1)));
+            } else if (arg.startsWith("-memosize=")) {
+                int capacity = intOption(arg);
+                if (capacity < 0) {
+                    throw new RuntimeException(USAGE);
+                }
+                MemoCache.setCapacity(capacity);
+            } else if (arg.equals("-memostats")) {
+                memoStats = true;
+            } else if (arg.equals("-stream")) {
+                stream = true;
+            } else if (arg.equals("-lazy")) {
+                lazy = true;
+            } else if (arg.equals("-flush=line")) {
+                Interpreter.getInterpreter().setOutput(new BufferedSink(new FileOutputStream(FileDescriptor.out), BufferedSink.DEFAULT_CAPACITY, BufferedSink.FlushPolicy.LINE));
+            } else if (arg.equals("-flush=full")) {
+                Interpreter.getInterpreter().setOutput(new BufferedSink(new FileOutputStream(FileDescriptor.out), BufferedSink.DEFAULT_CAPACITY, BufferedSink.FlushPolicy.FULL));
+            } else if (filename == null && !arg.startsWith("-")) {
+                filename = arg;
+            } else {
+                throw new RuntimeException(USAGE);
+            }
+        }
+        if (filename == null || ((stream || lazy) && mode != null)) {
+            throw new RuntimeException(USAGE);
         }
+        Parser.getParser().setLazy(lazy);
+        OutputSink output = Interpreter.getInterpreter().getOutput();
         try {
             Reader reader = Reader.getReader();
-            String source = reader.read(args[0]);
-            Interpreter interpreter = Interpreter.getInterpreter();
-            interpreter.interpret(source);
-        } catch (ZeroDivisionError | SyntaxError | NameError | TypeError e) {
-            System.out.println(e.getClass().getName().substring(e.getClass().getName().indexOf('.')+1) + ": " + e.getMessage());
+            Source source = reader.read(filename);
+            if ("-vm".equals(mode)) {
+                VirtualMachine vm = VirtualMachine.getVirtualMachine();
+                vm.interpret(source);
+            } else if ("-closure".equals(mode)) {
+                ClosureInterpreter interpreter = ClosureInterpreter.getInterpreter();
+                interpreter.interpret(source);
+            } else if ("-stackless".equals(mode)) {
+                StacklessInterpreter interpreter = StacklessInterpreter.getInterpreter();
+                interpreter.setRecursionLimit(recursionLimit);
+                interpreter.interpret(source);
+            } else if (stream) {
+                Interpreter interpreter = Interpreter.getInterpreter();
+                interpreter.interpretStreaming(source);
+            } else {
+                Interpreter interpreter = Interpreter.getInterpreter();
+                interpreter.interpret(source);
+            }
+        } catch (ZeroDivisionError | SyntaxError | NameError | TypeError | RecursionError e) {
+            output.println(e.getClass().getName().substring(e.getClass().getName().indexOf('.')+1) + ": " + e.getMessage());
+        } finally {
+            if (memoStats) {
+                for (MemoCache cache : MemoCache.getCaches()) {
+                    output.println("memo " + cache);
+                }
+            }
+            output.flush();
+        }
+    }
+
+    /**
+     *  value of option in -name=N form
+     */
+    private static int intOption(String arg) {
+        try {
+            return Integer.parseInt(arg.substring(arg.indexOf('=')+1));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException(USAGE);
         }
     }
 }
@@ -0,0 +1,195 @@
+package closure;
+
+import component.DoubleOpAST;
+import entity.Frame;
+import exception.NameError;
+import exception.SyntaxError;
+import exception.TypeError;
+import exception.ZeroDivisionError;
+import node.BinaryNode;
+
+/**
+ *  Compiled DoubleOp node carrying int/double operands unboxed.
+ *  state life cycle (same idea as node.BinaryNode):
+ *     uninitialized --(observe operand types)--> INT / DOUBLE --(operand of other type)--> re-specialized / generic
+ *  in INT/DOUBLE state operands are read through evalInt/evalDouble and results are returned through the unboxed
+ *  paths, value only gets boxed when parent asks for an Object
+ */
+final class BinaryEvaluator implements Evaluator {
+    /**
+     *  number of rewrites allowed before settling on the generic state
+     */
+    private static final int MAX_REWRITES = 4;
+
+    private static final int UNINITIALIZED = 0;
+    private static final int INT = 1;
+    private static final int DOUBLE = 2;
+    private static final int GENERIC = 3;
+
+    private final Evaluator left;
+    private final Evaluator right;
+    private final int operator;
+    private final BinaryNode generic;
+
+    private int state = UNINITIALIZED;
+    private int rewrites;
+    // operand kinds in DOUBLE state, at least one of them is not int
+    private boolean leftInt;
+    private boolean rightInt;
+
+    BinaryEvaluator(DoubleOpAST doubleOpNode, Evaluator left, Evaluator right) {
+        this.left = left;
+        this.right = right;
+        this.operator = doubleOpNode.getOperatorCode();
+        this.generic = BinaryNode.generic(doubleOpNode);
+    }
+
+    public Object eval(Frame frame) throws ZeroDivisionError, SyntaxError, NameError, TypeError {
+        if (state == UNINITIALIZED) {
+            return respecialize(left.eval(frame), right.eval(frame));
+        } else if (state == GENERIC) {
+            return generic.execute(left.eval(frame), right.eval(frame));
+        } else if (operator >= BinaryNode.GT) {
+            return evalBoolean(frame);
+        }
+        try {
+            if (state == INT && operator != BinaryNode.TRUEDIV) {
+                return evalInt(frame);
+            }
+            return evalDouble(frame);
+        } catch (UnexpectedResultException e) {
+            return e.getResult();
+        }
+    }
+
+    public int evalInt(Frame frame) throws ZeroDivisionError, SyntaxError, NameError, TypeError, UnexpectedResultException {
+        if (state != INT || operator > BinaryNode.DIV) {
+            return Evaluator.super.evalInt(frame);
+        }
+        int l, r;
+        try {
+            l = left.evalInt(frame);
+        } catch (UnexpectedResultException e) {
+            return Evaluator.expectInt(respecialize(e.getResult(), right.eval(frame)));
+        }
+        try {
+            r = right.evalInt(frame);
+        } catch (UnexpectedResultException e) {
+            return Evaluator.expectInt(respecialize(l, e.getResult()));
+        }
+        switch (operator) {
+            case BinaryNode.ADD: return l + r;
+            case BinaryNode.SUB: return l - r;
+            case BinaryNode.MUL: return l * r;
+            default:
+                if (r == 0) {
+                    // reports division by zero
+                    return Evaluator.expectInt(generic.execute(l, r));
+                }
+                return l / r;
+        }
+    }
+
+    public double evalDouble(Frame frame) throws ZeroDivisionError, SyntaxError, NameError, TypeError, UnexpectedResultException {
+        if (state == INT && operator == BinaryNode.TRUEDIV) {
+            int l, r;
+            try {
+                l = left.evalInt(frame);
+            } catch (UnexpectedResultException e) {
+                return Evaluator.expectDouble(respecialize(e.getResult(), right.eval(frame)));
+            }
+            try {
+                r = right.evalInt(frame);
+            } catch (UnexpectedResultException e) {
+                return Evaluator.expectDouble(respecialize(l, e.getResult()));
+            }
+            return (double) l / r;
+        }
+        if (state != DOUBLE || operator >= BinaryNode.GT) {
+            return Evaluator.super.evalDouble(frame);
+        }
+        double l, r;
+        try {
+            l = leftInt ? left.evalInt(frame) : left.evalDouble(frame);
+        } catch (UnexpectedResultException e) {
+            return Evaluator.expectDouble(respecialize(e.getResult(), right.eval(frame)));
+        }
+        try {
+            r = rightInt ? right.evalInt(frame) : right.evalDouble(frame);
+        } catch (UnexpectedResultException e) {
+            return Evaluator.expectDouble(respecialize(leftInt ? (Object) (int) l : (Object) l, e.getResult()));
+        }
+        switch (operator) {
+            case BinaryNode.ADD: return l + r;
+            case BinaryNode.SUB: return l - r;
+            case BinaryNode.MUL: return l * r;
+            default: return l / r;
+        }
+    }
+
+    public boolean evalBoolean(Frame frame) throws ZeroDivisionError, SyntaxError, NameError, TypeError {
+        if (operator < BinaryNode.GT || (state != INT && state != DOUBLE)) {
+            return Evaluator.super.evalBoolean(frame);
+        }
+        if (state == INT) {
+            int l, r;
+            try {
+                l = left.evalInt(frame);
+            } catch (UnexpectedResultException e) {
+                return (boolean) respecialize(e.getResult(), right.eval(frame));
+            }
+            try {
+                r = right.evalInt(frame);
+            } catch (UnexpectedResultException e) {
+                return (boolean) respecialize(l, e.getResult());
+            }
+            switch (operator) {
+                case BinaryNode.GT: return l > r;
+                case BinaryNode.LT: return l < r;
+                case BinaryNode.GE: return l >= r;
+                case BinaryNode.LE: return l <= r;
+                case BinaryNode.EQ: return l == r;
+                default: return l != r;
+            }
+        }
+        double l, r;
+        try {
+            l = leftInt ? left.evalInt(frame) : left.evalDouble(frame);
+        } catch (UnexpectedResultException e) {
+            return (boolean) respecialize(e.getResult(), right.eval(frame));
+        }
+        try {
+            r = rightInt ? right.evalInt(frame) : right.evalDouble(frame);
+        } catch (UnexpectedResultException e) {
+            return (boolean) respecialize(leftInt ? (Object) (int) l : (Object) l, e.getResult());
+        }
+        switch (operator) {
+            case BinaryNode.GT: return l > r;
+            case BinaryNode.LT: return l < r;
+            case BinaryNode.GE: return l >= r;
+            case BinaryNode.LE: return l <= r;
+            case BinaryNode.EQ: return l == r;
+            default: return l != r;
+        }
+    }
+
+    /**
+     *  speculation failed (or first evaluation): pick state for the observed operand types,
+     *  evaluate this time through the generic node
+     */
+    private Object respecialize(Object l, Object r) throws ZeroDivisionError {
+        if (rewrites >= MAX_REWRITES) {
+            state = GENERIC;
+        } else if (l instanceof Integer && r instanceof Integer) {
+            state = INT;
+        } else if ((l instanceof Integer || l instanceof Double) && (r instanceof Integer || r instanceof Double)) {
+            state = DOUBLE;
+            leftInt = l instanceof Integer;
+            rightInt = r instanceof Integer;
+        } else {
+            state = GENERIC;
+        }
+        rewrites += 1;
+        return generic.execute(l, r);
+    }
+}
@@ -0,0 +1,499 @@
+package closure;
+
+import component.*;
+import entity.Builtin;
+import entity.BuiltinFunctions;
+import entity.Closure;
+import entity.Frame;
+import entity.Function;
+import entity.InlineCache;
+import entity.Lexer;
+import entity.MemoCache;
+import entity.Scope;
+import entity.TailCall;
+import exception.NameError;
+import exception.SyntaxError;
+import exception.TypeError;
+import exception.ZeroDivisionError;
+import jit.CompiledFunction;
+import jit.JitCompiler;
+import node.BinaryNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ *  [Singleton]
+ *  jobs:
+ *     - convert each resolved AST node once into a pre-linked Evaluator (closure compilation)
+ *     - fix operator choice, constant values and child evaluators at compile time,
+ *       so evaluation involves neither the instanceof dispatcher nor operator name comparison
+ *     - keep semantics (value of statements, error reporting) identical to the tree-walking Interpreter
+ */
+public class ClosureCompiler {
+    private static ClosureCompiler compiler = new ClosureCompiler();
+    private static Lexer lexer = Lexer.getLexer();
+    private static JitCompiler jit = JitCompiler.getJit();
+
+    private ClosureCompiler() {}
+
+    public static ClosureCompiler getCompiler() { return compiler; }
+
+    /**
+     *  client method
+     *  dispatch based on node type, only called once for each node
+     */
+    public Evaluator compile(AST node) {
+        if (node instanceof ProgramAST) {
+            return compileProgram((ProgramAST) node);
+        } else if (node instanceof BlockAST) {
+            return compileBlock((BlockAST) node);
+        } else if (node instanceof AssignAST) {
+            return compileAssign((AssignAST) node);
+        } else if (node instanceof FunctionDelAST) {
+            return compileFunctionDel((FunctionDelAST) node);
+        } else if (node instanceof LambdaExprAST) {
+            return compileLambdaExpr((LambdaExprAST) node);
+        } else if (node instanceof FunctionCallAST) {
+            return compileFunctionCall((FunctionCallAST) node);
+        } else if (node instanceof IfStmtAST) {
+            return compileIfStmt((IfStmtAST) node);
+        } else if (node instanceof WhileStmtAST) {
+            return compileWhileStmt((WhileStmtAST) node);
+        } else if (node instanceof ReturnAST) {
+            Evaluator expr = compile(((ReturnAST) node).getExpr());
+            return frame -> {
+                Object val = expr.eval(frame);
+                frame.markReturned();
+                return val;
+            };
+        } else if (node instanceof DoubleOpAST) {
+            return compileDoubleOp((DoubleOpAST) node);
+        } else if (node instanceof SingleOpAST) {
+            return compileSingleOp((SingleOpAST) node);
+        } else if (node instanceof VarAST) {
+            return compileVar((VarAST) node);
+        } else if (node instanceof NumericIntAST) {
+            return compileNumericInt((NumericIntAST) node);
+        } else if (node instanceof NumericDoubleAST) {
+            return compileNumericDouble((NumericDoubleAST) node);
+        } else if (node instanceof BooleanType) {
+            boolean val = ((BooleanType) node).getVal();
+            Object boxed = val;
+            return new Evaluator() {
+                public Object eval(Frame frame) { return boxed; }
+                public boolean evalBoolean(Frame frame) { return val; }
+            };
+        }
+        return frame -> -1;
+    }
+
+    /**
+     *  Program node: run block in a fresh global frame
+     */
+    private Evaluator compileProgram(ProgramAST programNode) {
+        Scope scope = programNode.getScope();
+        int slot = ((VarAST) programNode.getVarNode()).getSlot();
+        Evaluator block = compile(programNode.getBlockNode());
+        return frame -> {
+            Frame globalFrame = new Frame(scope, null);
+            BuiltinFunctions.bind(globalFrame);
+            globalFrame.put(slot, "CASE TEST");
+            block.eval(globalFrame);
+            return null;
+        };
+    }
+
+    /**
+     *  Block node: value of the last statement, nothing for an empty block
+     *  stops at the statement completing with return
+     */
+    private Evaluator compileBlock(BlockAST blockNode) {
+        List<AST> stmts = blockNode.getStmtnode();
+        Evaluator[] evaluators = new Evaluator[stmts.size()];
+        for (int i = 0; i < evaluators.length; i += 1) {
+            evaluators[i] = compile(stmts.get(i));
+        }
+        switch (evaluators.length) {
+            case 0:
+                return frame -> null;
+            case 1:
+                return evaluators[0];
+            case 2: {
+                Evaluator first = evaluators[0];
+                Evaluator second = evaluators[1];
+                return frame -> {
+                    Object res = first.eval(frame);
+                    return frame.hasReturned() ? res : second.eval(frame);
+                };
+            }
+            default:
+                return frame -> {
+                    Object res = null;
+                    for (Evaluator evaluator : evaluators) {
+                        res = evaluator.eval(frame);
+                        if (frame.hasReturned()) {
+                            break;
+                        }
+                    }
+                    return res;
+                };
+        }
+    }
+
+    /**
+     *  Assign node: value is stored unboxed as long as expression keeps producing int (then double),
+     *  falls back to storing Object from the first value of another type on
+     */
+    private Evaluator compileAssign(AssignAST assignNode) {
+        int slot = ((VarAST) assignNode.getVarNode()).getSlot();
+        Evaluator expr = compile(assignNode.getExprNode());
+        return new Evaluator() {
+            // 0: int, 1: double, 2: object
+            private int kind;
+
+            public Object eval(Frame frame) throws ZeroDivisionError, SyntaxError, NameError, TypeError {
+                if (kind == 0) {
+                    try {
+                        frame.putInt(slot, expr.evalInt(frame));
+                    } catch (UnexpectedResultException e) {
+                        kind = e.getResult() instanceof Double ? 1 : 2;
+                        frame.put(slot, e.getResult());
+                    }
+                } else if (kind == 1) {
+                    try {
+                        frame.putDouble(slot, expr.evalDouble(frame));
+                    } catch (UnexpectedResultException e) {
+                        kind = 2;
+                        frame.put(slot, e.getResult());
+                    }
+                } else {
+                    frame.put(slot, expr.eval(frame));
+                }
+                return null;
+            }
+        };
+    }
+
+    /**
+     *  Var node: unboxed slot is read as it is on the unboxed paths, boxed only by eval
+     */
+    private Evaluator compileVar(VarAST var) {
+        int depth = var.getDepth();
+        int slot = var.getSlot();
+        if (depth < 0) {
+            return frame -> frame.lookup(var);
+        }
+        return new Evaluator() {
+            public Object eval(Frame frame) throws NameError {
+                return frame.lookup(var);
+            }
+
+            public int evalInt(Frame frame) throws NameError, UnexpectedResultException {
+                Frame owner = frame.ancestor(depth);
+                if (owner.isInt(slot)) {
+                    return owner.getInt(slot);
+                }
+                return Evaluator.expectInt(frame.lookup(var));
+            }
+
+            public double evalDouble(Frame frame) throws NameError, UnexpectedResultException {
+                Frame owner = frame.ancestor(depth);
+                if (owner.isDouble(slot)) {
+                    return owner.getDouble(slot);
+                }
+                return Evaluator.expectDouble(frame.lookup(var));
+            }
+        };
+    }
+
+    /**
+     *  constants are boxed once at compile time
+     */
+    private Evaluator compileNumericInt(NumericIntAST numericIntNode) {
+        int val = numericIntNode.getVal();
+        Object boxed = numericIntNode.getBoxedVal();
+        return new Evaluator() {
+            public Object eval(Frame frame) { return boxed; }
+            public int evalInt(Frame frame) { return val; }
+        };
+    }
+
+    private Evaluator compileNumericDouble(NumericDoubleAST numericDoubleNode) {
+        double val = numericDoubleNode.getVal();
+        Object boxed = numericDoubleNode.getBoxedVal();
+        return new Evaluator() {
+            public Object eval(Frame frame) { return boxed; }
+            public double evalDouble(Frame frame) { return val; }
+        };
+    }
+
+    /**
+     *  function body gets compiled along with its declaration, function value is its closure over the declaring frame
+     */
+    private Evaluator compileFunctionDel(FunctionDelAST functionDelNode) {
+        int slot = ((VarAST) functionDelNode.getVarNode()).getSlot();
+        bodyOf(functionDelNode);
+        return frame -> {
+            frame.put(slot, new Closure(functionDelNode.getFunction(), frame));
+            return null;
+        };
+    }
+
+    private Evaluator compileLambdaExpr(LambdaExprAST lambdaExprNode) {
+        bodyOf(lambdaExprNode);
+        return frame -> new Closure(lambdaExprNode.getFunction(), frame);
+    }
+
+    /**
+     *  compiled body of function, compiled on demand for functions declared outside of compiled code
+     */
+    Evaluator bodyOf(FunctionDelAST functionDelNode) {
+        Evaluator body = functionDelNode.getCompiledBody();
+        if (body == null) {
+            body = compile(functionDelNode.getBlockNode());
+            functionDelNode.setCompiledBody(body);
+        }
+        return body;
+    }
+
+    Evaluator bodyOf(LambdaExprAST lambdaExprNode) {
+        Evaluator body = lambdaExprNode.getCompiledBody();
+        if (body == null) {
+            body = compile(lambdaExprNode.getBody());
+            lambdaExprNode.setCompiledBody(body);
+        }
+        return body;
+    }
+
+    Evaluator bodyOf(Function function) {
+        return function.isLambda() ? bodyOf((LambdaExprAST) function.getNode()) : bodyOf((FunctionDelAST) function.getNode());
+    }
+
+    private Evaluator compileIfStmt(IfStmtAST ifStmtNode) {
+        Evaluator predicate = compile(ifStmtNode.getPredicate());
+        Evaluator ifBody = compile(ifStmtNode.getIf_body());
+        Evaluator elseBody = compile(ifStmtNode.getElse_body());
+        return frame -> predicate.evalBoolean(frame) ? ifBody.eval(frame) : elseBody.eval(frame);
+    }
+
+    private Evaluator compileWhileStmt(WhileStmtAST whileStmtNode) {
+        Evaluator predicate = compile(whileStmtNode.getPredicate());
+        Evaluator body = compile(whileStmtNode.getBody());
+        return frame -> {
+            while (predicate.evalBoolean(frame)) {
+                Object res = body.eval(frame);
+                if (frame.hasReturned()) {
+                    return res;
+                }
+            }
+            return null;
+        };
+    }
+
+    /**
+     *  FunctionCall node: callee is checked before arguments get evaluated, same as Interpreter
+     *  each compiled call site keeps its own inline cache of called functions with their compiled body
+     */
+    private Evaluator compileFunctionCall(FunctionCallAST functionCallNode) {
+        VarAST var = (VarAST) functionCallNode.getVarNode();
+        int site = var.getPosition();
+        List<AST> exprs = functionCallNode.getExprNode();
+        Evaluator[] args = new Evaluator[exprs.size()];
+        for (int i = 0; i < args.length; i += 1) {
+            args[i] = compile(exprs.get(i));
+        }
+        Builtin builtin = functionCallNode.getBuiltin();
+        if (builtin != null) {
+            return compileBuiltinCall(builtin, args, site);
+        }
+        boolean tailCall = functionCallNode.isTailCall();
+        InlineCache<Evaluator> cache = new InlineCache<>();
+        return frame -> {
+            Object callee = frame.lookup(var);
+            if (callee instanceof Closure) {
+                Closure closure = (Closure) callee;
+                Object[] vals = evalArgs(args, frame);
+                if (tailCall) {
+                    return new TailCall(closure, vals, site);
+                }
+                Function function = closure.getFunction();
+                Evaluator body = cache.lookup(function);
+                if (body == null) {
+                    function.prepare(vals.length, site);
+                    body = compiler.bodyOf(function);
+                    cache.add(function, body);
+                }
+                return invoke(closure, body, vals, site);
+            } else if (callee instanceof Builtin) {
+                return BuiltinFunctions.invoke((Builtin) callee, evalArgs(args, frame), site);
+            }
+            lexer.generatorErrorMsg(site);
+            throw new TypeError(var.getName() + " is not callable.");
+        };
+    }
+
+    /**
+     *  call linked to built-in function by Resolver: arguments go straight into its fixed-arity entry point
+     */
+    private Evaluator compileBuiltinCall(Builtin builtin, Evaluator[] args, int site) {
+        switch (args.length) {
+            case 0:
+                return frame -> builtin.call0(site);
+            case 1: {
+                Evaluator arg = args[0];
+                return frame -> builtin.call1(arg.eval(frame), site);
+            }
+            case 2: {
+                Evaluator arg0 = args[0];
+                Evaluator arg1 = args[1];
+                return frame -> {
+                    Object val = arg0.eval(frame);
+                    return builtin.call2(val, arg1.eval(frame), site);
+                };
+            }
+            default:
+                return frame -> builtin.call(evalArgs(args, frame), site);
+        }
+    }
+
+    private static Object[] evalArgs(Evaluator[] args, Frame frame) throws ZeroDivisionError, SyntaxError, NameError, TypeError {
+        Object[] vals = new Object[args.length];
+        for (int i = 0; i < args.length; i += 1) {
+            vals[i] = args[i].eval(frame);
+        }
+        return vals;
+    }
+
+    /**
+     *  run compiled body in a new frame whose parent is the environment captured by the closure
+     *  hot function is handed to JitCompiler first, same as in the Interpreter
+     *  tail call coming back as value is run in place of current invocation, reusing its frame when no closure captured it
+     *  memoized function is answered from its cache instead, result of a missed call is stored for every invocation it completes
+     *  report error when number of parameters mismatch, site is the position of the call
+     *  body is the one the inline cache of the call site holds, null when function is not ready for the call yet
+     */
+    static Object invoke(Closure closure, Evaluator body, Object[] args, int site) throws ZeroDivisionError, SyntaxError, NameError, TypeError {
+        Frame frame = null;
+        List<MemoCache> memos = null;
+        List<Object[]> keys = null;
+        while (true) {
+            Function function = closure.getFunction();
+            if (body == null) {
+                function.prepare(args.length, site);
+                body = compiler.bodyOf(function);
+            }
+            Frame parent = closure.getEnv();
+            Object res = CompiledFunction.DEOPTIMIZED;
+            MemoCache memo = function.getMemo();
+            if (memo != null && MemoCache.isCacheable(args)) {
+                res = memo.lookup(args);
+                if (res == MemoCache.MISSING) {
+                    if (memos == null) {
+                        memos = new ArrayList<>();
+                        keys = new ArrayList<>();
+                    }
+                    memos.add(memo);
+                    keys.add(args);
+                    res = CompiledFunction.DEOPTIMIZED;
+                }
+            } else if (memo == null) {
+                res = jit.invoke(function.getNode(), parent, Arrays.asList(args));
+            }
+            if (res == CompiledFunction.DEOPTIMIZED) {
+                if (frame != null && frame.getScope() == function.getScope() && frame.getParent() == parent && !frame.isCaptured()) {
+                    frame.reset();
+                } else {
+                    frame = new Frame(function.getScope(), parent);
+                }
+                function.bind(frame, args);
+                res = body.eval(frame);
+            }
+            if (!(res instanceof TailCall)) {
+                for (int i = 0; memos != null && i < memos.size(); i += 1) {
+                    memos.get(i).store(keys.get(i), res);
+                }
+                return res;
+            }
+            TailCall tailCall = (TailCall) res;
+            closure = tailCall.getClosure();
+            args = tailCall.getArgs();
+            site = tailCall.getSite();
+            body = null;
+        }
+    }
+
+    /**
+     *  SingleOp node: "+/-" with boolean converted to int, int/double operand carried unboxed
+     */
+    private Evaluator compileSingleOp(SingleOpAST singleOpNode) {
+        Evaluator operand = compile(singleOpNode.getOperand());
+        boolean minus = singleOpNode.getOperatorCode() == BinaryNode.SUB;
+        return new Evaluator() {
+            public Object eval(Frame frame) throws ZeroDivisionError, SyntaxError, NameError, TypeError {
+                return apply(operand.eval(frame));
+            }
+
+            public int evalInt(Frame frame) throws ZeroDivisionError, SyntaxError, NameError, TypeError, UnexpectedResultException {
+                int val;
+                try {
+                    val = operand.evalInt(frame);
+                } catch (UnexpectedResultException e) {
+                    return Evaluator.expectInt(apply(e.getResult()));
+                }
+                return minus ? -val : val;
+            }
+
+            public double evalDouble(Frame frame) throws ZeroDivisionError, SyntaxError, NameError, TypeError, UnexpectedResultException {
+                double val;
+                try {
+                    val = operand.evalDouble(frame);
+                } catch (UnexpectedResultException e) {
+                    return Evaluator.expectDouble(apply(e.getResult()));
+                }
+                return minus ? -val : val;
+            }
+
+            private Object apply(Object val) {
+                if (val instanceof Integer) {
+                    return minus ? -(int) val : val;
+                } else if (val instanceof Double) {
+                    return minus ? -(double) val : val;
+                }
+                return minus ? -boolean_to_int(val) : boolean_to_int(val);
+            }
+        };
+    }
+
+    /**
+     *  DoubleOp node: operator chosen at compile time, operands carried unboxed once their types are known
+     */
+    private Evaluator compileDoubleOp(DoubleOpAST doubleOpNode) {
+        return new BinaryEvaluator(doubleOpNode, compile(doubleOpNode.getLeftOperand()), compile(doubleOpNode.getRightOperand()));
+    }
+
+    /**
+     *  helper method converting True to 1, False to 0
+     */
+    private static int boolean_to_int(Object o) {
+        if (o.equals(true)) {
+            return 1;
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     *  helper method converting basic data type to boolean type
+     */
+    static boolean convertToBoolean(Object o) {
+        if (o instanceof Boolean) {
+            return (boolean) o;
+        } else if (o instanceof Integer) {
+            return (int) o != 0;
+        } else {
+            return (double) o != 0;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package closure;
+
+import component.AST;
+import entity.FrontEnd;
+import entity.Resolver;
+import entity.Source;
+import exception.NameError;
+import exception.SyntaxError;
+import exception.TypeError;
+import exception.ZeroDivisionError;
+
+/**
+ *  [Singleton]
+ *  execution mode converting the whole program into a tree of Evaluator once, then running it
+ *  jobs:
+ *     - same front end as the tree-walking Interpreter (Lexer -> Parser -> PassManager -> Resolver)
+ *     - hand resolved AST to ClosureCompiler and evaluate its result
+ */
+public class ClosureInterpreter {
+    private static ClosureInterpreter interpreter = new ClosureInterpreter();
+    private static FrontEnd frontEnd = FrontEnd.getFrontEnd();
+    private static Resolver resolver = Resolver.getResolver();
+    private static ClosureCompiler compiler = ClosureCompiler.getCompiler();
+
+    private ClosureInterpreter() {}
+
+    public static ClosureInterpreter getInterpreter() { return interpreter; }
+
+    /**
+     *  client method
+     */
+    public Object interpret(Source source) throws SyntaxError, ZeroDivisionError, NameError, TypeError {
+        AST root = frontEnd.build(source);
+        resolver.resolve(root);
+        return compiler.compile(root).eval(null);
+    }
+}
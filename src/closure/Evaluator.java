@@ -0,0 +1,54 @@
+package closure;
+
+import entity.Frame;
+import exception.NameError;
+import exception.SyntaxError;
+import exception.TypeError;
+import exception.ZeroDivisionError;
+
+/**
+ *  Pre-linked executable form of an AST node produced by ClosureCompiler.
+ *  Operator, constant values and child evaluators are captured when the node is compiled,
+ *  evaluation only needs the frame it runs in.
+ *  Numeric nodes also override the unboxed paths, so that int/double values flow between parent and child
+ *  without being boxed; the default implementations unbox the result of eval.
+ */
+@FunctionalInterface
+public interface Evaluator {
+    Object eval(Frame frame) throws ZeroDivisionError, SyntaxError, NameError, TypeError;
+
+    /**
+     *  int result without boxing, result of any other type is handed back through UnexpectedResultException
+     */
+    default int evalInt(Frame frame) throws ZeroDivisionError, SyntaxError, NameError, TypeError, UnexpectedResultException {
+        return expectInt(eval(frame));
+    }
+
+    /**
+     *  double result without boxing, result of any other type (int included) is handed back through UnexpectedResultException
+     */
+    default double evalDouble(Frame frame) throws ZeroDivisionError, SyntaxError, NameError, TypeError, UnexpectedResultException {
+        return expectDouble(eval(frame));
+    }
+
+    /**
+     *  result converted to boolean, used by predicates of if/while
+     */
+    default boolean evalBoolean(Frame frame) throws ZeroDivisionError, SyntaxError, NameError, TypeError {
+        return ClosureCompiler.convertToBoolean(eval(frame));
+    }
+
+    static int expectInt(Object val) throws UnexpectedResultException {
+        if (val instanceof Integer) {
+            return (int) val;
+        }
+        throw new UnexpectedResultException(val);
+    }
+
+    static double expectDouble(Object val) throws UnexpectedResultException {
+        if (val instanceof Double) {
+            return (double) val;
+        }
+        throw new UnexpectedResultException(val);
+    }
+}
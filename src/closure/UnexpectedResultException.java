@@ -0,0 +1,19 @@
+package closure;
+
+/**
+ *  Thrown by the unboxed evaluation paths (evalInt/evalDouble) when the value produced is not of the expected type.
+ *  Carries the boxed value so that the caller can continue with it and give up its speculation,
+ *  no stack trace is filled in since it is used for control flow only.
+ */
+public class UnexpectedResultException extends Exception {
+    private final Object result;
+
+    public UnexpectedResultException(Object result) {
+        super(null, null, false, false);
+        this.result = result;
+    }
+
+    public Object getResult() {
+        return result;
+    }
+}
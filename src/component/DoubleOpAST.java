@@ -1,20 +1,36 @@
 package component;
 
-import entity.Token;
+import node.BinaryNode;
 
 /**
  *  Corresponding to operation with two operands such as "+", "*", "==", "<"
  */
 public class DoubleOpAST implements AST {
-    private Token operator;
+    private int position;
+    private int operatorCode;
     private AST leftOperand, rightOperand;
+    private BinaryNode specialization;
 
-    public Token getOperator() {
-        return operator;
+    /**
+     *  offset of the operator in the source
+     */
+    public int getPosition() {
+        return position;
     }
 
-    public void setOperator(Token operator) {
-        this.operator = operator;
+    public void setPosition(int position) {
+        this.position = position;
+    }
+
+    /**
+     *  operator resolved by Parser into one of the codes defined in BinaryNode (ADD, SUB, ...), dispatched with switch
+     */
+    public int getOperatorCode() {
+        return operatorCode;
+    }
+
+    public void setOperatorCode(int operatorCode) {
+        this.operatorCode = operatorCode;
     }
 
     public AST getLeftOperand() {
@@ -32,4 +48,15 @@ public class DoubleOpAST implements AST {
     public void setRightOperand(AST rightOperand) {
         this.rightOperand = rightOperand;
     }
+
+    /**
+     *  operator implementation specialized by observed operand types, rewritten in place during evaluation
+     */
+    public BinaryNode getSpecialization() {
+        return specialization;
+    }
+
+    public void setSpecialization(BinaryNode specialization) {
+        this.specialization = specialization;
+    }
 }
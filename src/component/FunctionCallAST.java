@@ -1,5 +1,8 @@
 package component;
 
+import entity.Builtin;
+import entity.InlineCache;
+
 import java.util.List;
 
 /**
@@ -8,6 +11,9 @@ import java.util.List;
 public class FunctionCallAST implements AST {
     private AST varNode;
     private List<AST> exprNode;
+    private boolean tailCall;
+    private final InlineCache<AST> callCache = new InlineCache<>();
+    private Builtin builtin;
 
     public AST getVarNode() {
         return varNode;
@@ -24,4 +30,33 @@ public class FunctionCallAST implements AST {
     public void setExprNode(List<AST> exprNode) {
         this.exprNode = exprNode;
     }
+
+    /**
+     *  call is the last action of the enclosing function body, marked by TailCallMarking
+     */
+    public boolean isTailCall() {
+        return tailCall;
+    }
+
+    public void setTailCall(boolean tailCall) {
+        this.tailCall = tailCall;
+    }
+
+    /**
+     *  functions called at this call site with their body, consulted by the Interpreter and the stackless engine
+     */
+    public InlineCache<AST> getCallCache() {
+        return callCache;
+    }
+
+    /**
+     *  built-in function linked by Resolver when callee always is the global built-in function, null otherwise
+     */
+    public Builtin getBuiltin() {
+        return builtin;
+    }
+
+    public void setBuiltin(Builtin builtin) {
+        this.builtin = builtin;
+    }
 }
@@ -1,5 +1,11 @@
 package component;
 
+import closure.Evaluator;
+import entity.Function;
+import entity.MemoCache;
+import entity.Scope;
+import jit.CompiledFunction;
+
 import java.util.List;
 
 /**
@@ -9,6 +15,13 @@ public class FunctionDelAST implements AST {
     private AST varNode;
     private List<AST> paramNode;
     private AST blockNode;
+    private Scope scope;
+    private Evaluator compiledBody;
+    private int invocations;
+    private CompiledFunction jitCode;
+    private boolean memoizable = true;
+    private MemoCache memo;
+    private Function function;
 
     public AST getVarNode() {
         return varNode;
@@ -33,4 +46,78 @@ public class FunctionDelAST implements AST {
     public void setBlockNode(AST blockNode) {
         this.blockNode = blockNode;
     }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    public void setScope(Scope scope) {
+        this.scope = scope;
+    }
+
+    /**
+     *  body converted by ClosureCompiler, null until compiled
+     */
+    public Evaluator getCompiledBody() {
+        return compiledBody;
+    }
+
+    public void setCompiledBody(Evaluator compiledBody) {
+        this.compiledBody = compiledBody;
+    }
+
+    /**
+     *  number of calls interpreted so far, profiled by JitCompiler
+     */
+    public int getInvocations() {
+        return invocations;
+    }
+
+    public void setInvocations(int invocations) {
+        this.invocations = invocations;
+    }
+
+    /**
+     *  code generated by JitCompiler once function gets hot, null before
+     */
+    public CompiledFunction getJitCode() {
+        return jitCode;
+    }
+
+    public void setJitCode(CompiledFunction jitCode) {
+        this.jitCode = jitCode;
+    }
+
+    /**
+     *  false when declaration is preceded by the nomemo pragma
+     */
+    public boolean isMemoizable() {
+        return memoizable;
+    }
+
+    public void setMemoizable(boolean memoizable) {
+        this.memoizable = memoizable;
+    }
+
+    /**
+     *  result cache attached by PurityAnalysis when function is pure, null otherwise
+     */
+    public MemoCache getMemo() {
+        return memo;
+    }
+
+    public void setMemo(MemoCache memo) {
+        this.memo = memo;
+    }
+
+    /**
+     *  runtime description built by Resolver once scope is known
+     */
+    public Function getFunction() {
+        return function;
+    }
+
+    public void setFunction(Function function) {
+        this.function = function;
+    }
 }
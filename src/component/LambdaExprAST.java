@@ -1,6 +1,9 @@
 package component;
 
-import entity.Token;
+import closure.Evaluator;
+import entity.Function;
+import entity.Scope;
+import jit.CompiledFunction;
 
 import java.util.List;
 
@@ -9,9 +12,14 @@ import java.util.List;
  */
 public class LambdaExprAST implements AST {
     private String name;
-    private Token token;
+    private int position;
     private List<AST> params;
     private AST body;
+    private Scope scope;
+    private Evaluator compiledBody;
+    private int invocations;
+    private CompiledFunction jitCode;
+    private Function function;
 
     public String getName() {
         return name;
@@ -21,12 +29,15 @@ public class LambdaExprAST implements AST {
         this.name = name;
     }
 
-    public Token getToken() {
-        return token;
+    /**
+     *  offset of the name lambda is assigned to in the source, errors of lambda are reported there
+     */
+    public int getPosition() {
+        return position;
     }
 
-    public void setToken(Token token) {
-        this.token = token;
+    public void setPosition(int position) {
+        this.position = position;
     }
 
     public List<AST> getParams() {
@@ -44,4 +55,56 @@ public class LambdaExprAST implements AST {
     public void setBody(AST body) {
         this.body = body;
     }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    public void setScope(Scope scope) {
+        this.scope = scope;
+    }
+
+    /**
+     *  body converted by ClosureCompiler, null until compiled
+     */
+    public Evaluator getCompiledBody() {
+        return compiledBody;
+    }
+
+    public void setCompiledBody(Evaluator compiledBody) {
+        this.compiledBody = compiledBody;
+    }
+
+    /**
+     *  number of calls interpreted so far, profiled by JitCompiler
+     */
+    public int getInvocations() {
+        return invocations;
+    }
+
+    public void setInvocations(int invocations) {
+        this.invocations = invocations;
+    }
+
+    /**
+     *  code generated by JitCompiler once function gets hot, null before
+     */
+    public CompiledFunction getJitCode() {
+        return jitCode;
+    }
+
+    public void setJitCode(CompiledFunction jitCode) {
+        this.jitCode = jitCode;
+    }
+
+    /**
+     *  runtime description built by Resolver once scope is known
+     */
+    public Function getFunction() {
+        return function;
+    }
+
+    public void setFunction(Function function) {
+        this.function = function;
+    }
 }
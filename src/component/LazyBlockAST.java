@@ -0,0 +1,46 @@
+package component;
+
+import entity.Parser;
+import entity.Scope;
+
+/**
+ *  Stand-in for the body of a function declaration or lambda expression in lazy mode: { ... } left unparsed
+ *  the body is checked against the grammar up front without building nodes, the real BlockAST is built out of its tokens on first call
+ */
+public class LazyBlockAST implements AST {
+    // parser owning the tokens (one per chunk under the parallel front end)
+    private Parser parser;
+    // index of LCB token and index following the matching RCB token in the TokenBuffer
+    private int start;
+    private int end;
+    private Scope enclosing;
+
+    public LazyBlockAST(Parser parser, int start, int end) {
+        this.parser = parser;
+        this.start = start;
+        this.end = end;
+    }
+
+    public Parser getParser() {
+        return parser;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     *  scope the function is declared in, recorded by Resolver for resolving the body once it is parsed
+     */
+    public Scope getEnclosing() {
+        return enclosing;
+    }
+
+    public void setEnclosing(Scope enclosing) {
+        this.enclosing = enclosing;
+    }
+}
@@ -5,9 +5,11 @@ package component;
  */
 public class NumericDoubleAST implements AST {
     private double val;
+    private Double boxedVal;
 
     public NumericDoubleAST(double val) {
         this.val = val;
+        this.boxedVal = val;
     }
 
     public double getVal() {
@@ -16,5 +18,13 @@ public class NumericDoubleAST implements AST {
 
     public void setVal(double val) {
         this.val = val;
+        this.boxedVal = val;
+    }
+
+    /**
+     *  val boxed once on creation, so that evaluating the constant allocates nothing
+     */
+    public Double getBoxedVal() {
+        return boxedVal;
     }
 }
@@ -5,9 +5,11 @@ package component;
  */
 public class NumericIntAST implements AST {
     private int val;
+    private Integer boxedVal;
 
     public NumericIntAST(int val) {
         this.val = val;
+        this.boxedVal = val;
     }
 
     public int getVal() {
@@ -16,5 +18,13 @@ public class NumericIntAST implements AST {
 
     public void setVal(int val) {
         this.val = val;
+        this.boxedVal = val;
+    }
+
+    /**
+     *  val boxed once on creation, so that evaluating the constant allocates nothing
+     */
+    public Integer getBoxedVal() {
+        return boxedVal;
     }
 }
@@ -1,6 +1,6 @@
 package component;
 
-import entity.Token;
+import entity.Scope;
 
 /**
  *  Corresponding to entire program structure (e.g. PROGRAM demo { ... })
@@ -8,7 +8,8 @@ import entity.Token;
 public class ProgramAST implements AST {
     private AST varNode;
     private AST blockNode;
-    private Token token;
+    private int position;
+    private Scope scope;
 
     public AST getVarNode() {
         return varNode;
@@ -26,11 +27,22 @@ public class ProgramAST implements AST {
         this.blockNode = blockNode;
     }
 
-    public Token getToken() {
-        return token;
+    /**
+     *  offset of PROGRAM keyword in the source
+     */
+    public int getPosition() {
+        return position;
     }
 
-    public void setToken(Token token) {
-        this.token = token;
+    public void setPosition(int position) {
+        this.position = position;
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    public void setScope(Scope scope) {
+        this.scope = scope;
     }
 }
@@ -1,20 +1,33 @@
 package component;
 
-import entity.Token;
-
 /**
  *  Corresponding to operation with one operand such as "-2", "+3"
  */
 public class SingleOpAST implements AST {
-    private Token operator;
+    private int position;
+    private int operatorCode;
     private AST operand;
 
-    public Token getOperator() {
-        return operator;
+    /**
+     *  offset of the operator in the source
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    public void setPosition(int position) {
+        this.position = position;
+    }
+
+    /**
+     *  operator resolved by Parser into one of the codes defined in BinaryNode (ADD, SUB, ...), dispatched with switch
+     */
+    public int getOperatorCode() {
+        return operatorCode;
     }
 
-    public void setOperator(Token operator) {
-        this.operator = operator;
+    public void setOperatorCode(int operatorCode) {
+        this.operatorCode = operatorCode;
     }
 
     public AST getOperand() {
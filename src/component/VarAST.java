@@ -1,20 +1,23 @@
 package component;
 
-import entity.Token;
-
 /**
  *  Corresponding to variable element in language such as "x", "y2"
  */
 public class VarAST implements AST {
-    private Token token;
+    private int position;
     private String name;
+    private int depth = -1;
+    private int slot = -1;
 
-    public Token getToken() {
-        return token;
+    /**
+     *  offset of the name in the source
+     */
+    public int getPosition() {
+        return position;
     }
 
-    public void setToken(Token token) {
-        this.token = token;
+    public void setPosition(int position) {
+        this.position = position;
     }
 
     public String getName() {
@@ -24,4 +27,23 @@ public class VarAST implements AST {
     public void setName(String name) {
         this.name = name;
     }
+
+    /**
+     *  number of frames to go up from the current frame, -1 when name is not bound in any enclosing scope
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public void setSlot(int slot) {
+        this.slot = slot;
+    }
 }
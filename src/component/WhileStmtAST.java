@@ -1,11 +1,15 @@
 package component;
 
+import closure.Evaluator;
+
 /**
  *  Corresponding to while statement (i.e. while ( ... ) { ... })
  */
 public class WhileStmtAST implements AST {
     private AST predicate;
     private AST body;
+    private int backEdges;
+    private Evaluator osrCode;
 
     public AST getPredicate() {
         return predicate;
@@ -22,4 +26,26 @@ public class WhileStmtAST implements AST {
     public void setBody(AST body) {
         this.body = body;
     }
+
+    /**
+     *  iterations interpreted so far, profiled for on-stack replacement
+     */
+    public int getBackEdges() {
+        return backEdges;
+    }
+
+    public void setBackEdges(int backEdges) {
+        this.backEdges = backEdges;
+    }
+
+    /**
+     *  whole loop compiled by ClosureCompiler once it gets hot, null before
+     */
+    public Evaluator getOsrCode() {
+        return osrCode;
+    }
+
+    public void setOsrCode(Evaluator osrCode) {
+        this.osrCode = osrCode;
+    }
 }
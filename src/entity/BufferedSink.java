@@ -0,0 +1,201 @@
+package entity;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ *  OutputSink writing UTF-8 bytes into a plain byte array, no lock and no encoder object on the way
+ *  jobs:
+ *    - format int straight into the buffer, digit by digit
+ *    - copy double/boolean text (always ASCII) byte by byte, encode other text as UTF-8 by hand
+ *    - hand the buffer to the stream when it is full, and at the end of each line under LINE policy
+ *  like PrintStream, a failed write (e.g. reader of the pipe gone) is recorded instead of thrown,
+ *  and output is dropped from then on, see checkError()
+ */
+public final class BufferedSink implements OutputSink {
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    /**
+     *  when buffered bytes reach the stream besides explicit flush():
+     *    LINE - at the end of every line, for a terminal watched by a user
+     *    FULL - only when the buffer is full, for output going to a file or a pipe
+     */
+    public enum FlushPolicy { LINE, FULL }
+
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] MIN_INT = {'-', '2', '1', '4', '7', '4', '8', '3', '6', '4', '8'};
+    private static final byte[] NEWLINE = asciiBytes(System.lineSeparator());
+
+    private final OutputStream out;
+    private final byte[] buf;
+    private final FlushPolicy policy;
+    private int size;
+    private boolean error;
+
+    public BufferedSink(OutputStream out, int capacity, FlushPolicy policy) {
+        // room for the longest int so that print(int) fills the buffer in one go
+        this.buf = new byte[Math.max(capacity, MIN_INT.length)];
+        this.out = out;
+        this.policy = policy;
+    }
+
+    /**
+     *  sink of the standard output, flushed per line when a terminal is attached
+     */
+    public static BufferedSink stdout() {
+        return new BufferedSink(new FileOutputStream(FileDescriptor.out), DEFAULT_CAPACITY, System.console() != null ? FlushPolicy.LINE : FlushPolicy.FULL);
+    }
+
+    public FlushPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     *  flush, then tell whether writing to the stream has ever failed
+     */
+    public boolean checkError() {
+        flush();
+        return error;
+    }
+
+    public void print(String s) {
+        for (int i = 0; i < s.length(); i += 1) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                put((byte) c);
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i+1))) {
+                putCodePoint(Character.toCodePoint(c, s.charAt(i+1)));
+                i += 1;
+            } else {
+                putCodePoint(c);
+            }
+        }
+    }
+
+    public void print(char c) {
+        if (c < 0x80) {
+            put((byte) c);
+        } else {
+            putCodePoint(c);
+        }
+    }
+
+    public void print(int value) {
+        if (value == Integer.MIN_VALUE) {
+            put(MIN_INT);
+            return;
+        }
+        int v = Math.abs(value);
+        int length = value < 0 ? 2 : 1;
+        for (int rest = v / 10; rest != 0; rest /= 10) {
+            length += 1;
+        }
+        reserve(length);
+        int pos = size + length;
+        do {
+            buf[--pos] = (byte) ('0' + v % 10);
+            v /= 10;
+        } while (v != 0);
+        if (value < 0) {
+            buf[--pos] = '-';
+        }
+        size += length;
+    }
+
+    public void print(double value) {
+        String s = Double.toString(value);
+        for (int i = 0; i < s.length(); i += 1) {
+            put((byte) s.charAt(i));
+        }
+    }
+
+    public void print(boolean value) {
+        put(value ? TRUE : FALSE);
+    }
+
+    public void println() {
+        put(NEWLINE);
+        if (policy == FlushPolicy.LINE) {
+            flush();
+        }
+    }
+
+    public void flush() {
+        drain();
+        if (!error) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                error = true;
+            }
+        }
+    }
+
+    private void put(byte b) {
+        if (size == buf.length) {
+            drain();
+        }
+        buf[size++] = b;
+    }
+
+    private void put(byte[] bytes) {
+        reserve(bytes.length);
+        System.arraycopy(bytes, 0, buf, size, bytes.length);
+        size += bytes.length;
+    }
+
+    /**
+     *  UTF-8 encoding of a code point beyond ASCII, lone surrogate becomes '?' like the JDK encoder does
+     */
+    private void putCodePoint(int cp) {
+        reserve(4);
+        if (cp < 0x800) {
+            buf[size++] = (byte) (0xC0 | (cp >> 6));
+        } else if (Character.isSurrogate((char) cp) && cp < 0x10000) {
+            buf[size++] = '?';
+            return;
+        } else if (cp < 0x10000) {
+            buf[size++] = (byte) (0xE0 | (cp >> 12));
+            buf[size++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+        } else {
+            buf[size++] = (byte) (0xF0 | (cp >> 18));
+            buf[size++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+            buf[size++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+        }
+        buf[size++] = (byte) (0x80 | (cp & 0x3F));
+    }
+
+    /**
+     *  make room for n more bytes (n never exceeds the capacity)
+     */
+    private void reserve(int n) {
+        if (size + n > buf.length) {
+            drain();
+        }
+    }
+
+    /**
+     *  hand buffered bytes to the stream, or drop them once it has failed
+     */
+    private void drain() {
+        if (size > 0 && !error) {
+            try {
+                out.write(buf, 0, size);
+            } catch (IOException e) {
+                error = true;
+            }
+        }
+        size = 0;
+    }
+
+    private static byte[] asciiBytes(String s) {
+        byte[] bytes = new byte[s.length()];
+        for (int i = 0; i < bytes.length; i += 1) {
+            bytes[i] = (byte) s.charAt(i);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,40 @@
+package entity;
+
+import exception.TypeError;
+
+/**
+ *  Built-in function callable from scripts, bound in the global frame under its name
+ *  standard ones are defined in BuiltinFunctions, more can be plugged in through java.util.ServiceLoader:
+ *  list the implementing classes (public, with no-arg constructor) in META-INF/services/entity.Builtin on the class path
+ *  fixed-arity entry points let call sites hand arguments over without packing them,
+ *  by default they fall back to call(Object[])
+ *  print shows it through toString(), standard ones as "$" followed by the name, plug-ins should do the same
+ *  error is reported at position pos (offset of the call site in the source) through Lexer.generatorErrorMsg before TypeError is thrown
+ */
+public interface Builtin {
+    /**
+     *  name the function is bound to
+     */
+    String getName();
+
+    /**
+     *  result depends on arguments only and calling it has no side effect, lets PurityAnalysis memoize callers
+     */
+    default boolean isPure() {
+        return false;
+    }
+
+    Object call(Object[] args, int pos) throws TypeError;
+
+    default Object call0(int pos) throws TypeError {
+        return call(new Object[0], pos);
+    }
+
+    default Object call1(Object arg, int pos) throws TypeError {
+        return call(new Object[] {arg}, pos);
+    }
+
+    default Object call2(Object arg0, Object arg1, int pos) throws TypeError {
+        return call(new Object[] {arg0, arg1}, pos);
+    }
+}
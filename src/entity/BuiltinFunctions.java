@@ -0,0 +1,291 @@
+package entity;
+
+import exception.TypeError;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ *  registry of built-in functions shared by every execution engine (tree-walking Interpreter, bytecode VirtualMachine, closure-compiled evaluators)
+ *  jobs:
+ *    - keep standard built-in functions followed by the ones found through ServiceLoader, first registered name wins
+ *    - bind them in the global frame
+ *    - call built-in function through the entry point matching number of arguments
+ */
+public class BuiltinFunctions {
+    private static Lexer lexer = Lexer.getLexer();
+
+    private static Map<String, Builtin> registry = new LinkedHashMap<>();
+
+    static {
+        register(new Print());
+        register(new Min());
+        register(new Max());
+        register(new Abs());
+        register(new Sum());
+        for (Builtin builtin : ServiceLoader.load(Builtin.class)) {
+            register(builtin);
+        }
+    }
+
+    private BuiltinFunctions() {}
+
+    private static void register(Builtin builtin) {
+        registry.putIfAbsent(builtin.getName(), builtin);
+    }
+
+    /**
+     *  names of registered built-in functions, global scope declares them first
+     */
+    public static Collection<String> names() {
+        return registry.keySet();
+    }
+
+    /**
+     *  built-in function registered under name, null when there is none
+     */
+    public static Builtin get(String name) {
+        return registry.get(name);
+    }
+
+    /**
+     *  initialization for built-in function by putting it into the slot of its name in the global frame
+     */
+    public static void bind(Frame globalFrame) {
+        for (Builtin builtin : registry.values()) {
+            globalFrame.put(globalFrame.getScope().slotOf(builtin.getName()), builtin);
+        }
+    }
+
+    /**
+     *  call built-in function with evaluated arguments, report error at position pos
+     */
+    public static Object invoke(Builtin builtin, Object[] args, int pos) throws TypeError {
+        switch (args.length) {
+            case 0: return builtin.call0(pos);
+            case 1: return builtin.call1(args[0], pos);
+            case 2: return builtin.call2(args[0], args[1], pos);
+            default: return builtin.call(args, pos);
+        }
+    }
+
+    /**
+     *  numeric value of argument of built-in function name, report error at position pos when it is no number
+     */
+    private static double toDouble(Object o, String name, int pos) throws TypeError {
+        if (o instanceof Double) {
+            return (double) o;
+        } else if (o instanceof Integer) {
+            return (int) o;
+        }
+        throw notNumeric(o, name, pos);
+    }
+
+    /**
+     *  report error at position pos, return TypeError of argument o of built-in function name being no number
+     */
+    private static TypeError notNumeric(Object o, String name, int pos) {
+        lexer.generatorErrorMsg(pos);
+        return new TypeError(name + " requires numeric arguments but got " + typeName(o) + ".");
+    }
+
+    private static String typeName(Object o) {
+        if (o instanceof Boolean) {
+            return "boolean";
+        } else if (o instanceof Builtin || o instanceof Closure) {
+            return "function";
+        }
+        return String.valueOf(o);
+    }
+
+    /**
+     *  standard built-in function, printed as "$" followed by its name
+     */
+    private static abstract class Standard implements Builtin {
+        public String toString() {
+            return "$" + getName();
+        }
+    }
+
+    /**
+     *  print(x, ...): arguments separated by (and ending with) a blank
+     */
+    private static final class Print extends Standard {
+        public String getName() {
+            return "print";
+        }
+
+        public Object call(Object[] args, int pos) {
+            OutputSink output = Interpreter.getInterpreter().getOutput();
+            for (Object o : args) {
+                output.print(o);
+                output.print(' ');
+            }
+            output.println();
+            return null;
+        }
+
+        public Object call1(Object arg, int pos) {
+            OutputSink output = Interpreter.getInterpreter().getOutput();
+            output.print(arg);
+            output.print(' ');
+            output.println();
+            return null;
+        }
+
+        public Object call2(Object arg0, Object arg1, int pos) {
+            OutputSink output = Interpreter.getInterpreter().getOutput();
+            output.print(arg0);
+            output.print(' ');
+            output.print(arg1);
+            output.print(' ');
+            output.println();
+            return null;
+        }
+    }
+
+    /**
+     *  min(x, ...): first of the smallest arguments
+     */
+    private static final class Min extends Standard {
+        public String getName() {
+            return "min";
+        }
+
+        public boolean isPure() {
+            return true;
+        }
+
+        public Object call(Object[] args, int pos) throws TypeError {
+            if (args.length < 1) {
+                lexer.generatorErrorMsg(pos);
+                throw new TypeError("min requires at least 1 argument but got 0.");
+            }
+            int idx = 0;
+            double min = toDouble(args[idx], "min", pos);
+            for (int i = 1; i < args.length; i += 1) {
+                double other = toDouble(args[i], "min", pos);
+                if (other < min) {
+                    min = other;
+                    idx = i;
+                }
+            }
+            return args[idx];
+        }
+
+        public Object call1(Object arg, int pos) throws TypeError {
+            toDouble(arg, "min", pos);
+            return arg;
+        }
+
+        public Object call2(Object arg0, Object arg1, int pos) throws TypeError {
+            double val0 = toDouble(arg0, "min", pos);
+            return toDouble(arg1, "min", pos) < val0 ? arg1 : arg0;
+        }
+    }
+
+    /**
+     *  max(x, ...): first of the largest arguments
+     */
+    private static final class Max extends Standard {
+        public String getName() {
+            return "max";
+        }
+
+        public boolean isPure() {
+            return true;
+        }
+
+        public Object call(Object[] args, int pos) throws TypeError {
+            if (args.length < 1) {
+                lexer.generatorErrorMsg(pos);
+                throw new TypeError("max requires at least 1 argument but got 0.");
+            }
+            int idx = 0;
+            double max = toDouble(args[idx], "max", pos);
+            for (int i = 1; i < args.length; i += 1) {
+                double other = toDouble(args[i], "max", pos);
+                if (other > max) {
+                    max = other;
+                    idx = i;
+                }
+            }
+            return args[idx];
+        }
+
+        public Object call1(Object arg, int pos) throws TypeError {
+            toDouble(arg, "max", pos);
+            return arg;
+        }
+
+        public Object call2(Object arg0, Object arg1, int pos) throws TypeError {
+            double val0 = toDouble(arg0, "max", pos);
+            return toDouble(arg1, "max", pos) > val0 ? arg1 : arg0;
+        }
+    }
+
+    /**
+     *  abs(x)
+     */
+    private static final class Abs extends Standard {
+        public String getName() {
+            return "abs";
+        }
+
+        public boolean isPure() {
+            return true;
+        }
+
+        public Object call(Object[] args, int pos) throws TypeError {
+            if (args.length != 1) {
+                lexer.generatorErrorMsg(pos);
+                throw new TypeError("abs requires exact 1 argument but got " + args.length + ".");
+            }
+            return call1(args[0], pos);
+        }
+
+        public Object call1(Object arg, int pos) throws TypeError {
+            if (arg instanceof Double) {
+                return Math.abs((double) arg);
+            } else if (arg instanceof Integer) {
+                return Math.abs((int) arg);
+            }
+            throw notNumeric(arg, "abs", pos);
+        }
+    }
+
+    /**
+     *  sum(x, ...): int unless one of the arguments is double
+     */
+    private static final class Sum extends Standard {
+        public String getName() {
+            return "sum";
+        }
+
+        public boolean isPure() {
+            return true;
+        }
+
+        public Object call(Object[] args, int pos) throws TypeError {
+            if (args.length < 1) {
+                lexer.generatorErrorMsg(pos);
+                throw new TypeError("sum requires at least 1 argument but got 0.");
+            }
+            double acc = 0;
+            int count = 0;
+            for (Object o : args) {
+                if (o instanceof Double) {
+                    count += 1;
+                }
+                acc += toDouble(o, "sum", pos);
+            }
+            if (count > 0) {
+                return acc;
+            } else {
+                return (int) acc;
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package entity;
+
+/**
+ *  OutputSink keeping output in memory, for a host program embedding the interpreter
+ *  lines end with '\n' whatever the platform is
+ */
+public final class CaptureSink implements OutputSink {
+    private final StringBuilder text = new StringBuilder();
+
+    public void print(String s) {
+        text.append(s);
+    }
+
+    public void print(char c) {
+        text.append(c);
+    }
+
+    public void print(int value) {
+        text.append(value);
+    }
+
+    public void print(double value) {
+        text.append(value);
+    }
+
+    public void print(boolean value) {
+        text.append(value);
+    }
+
+    public void println() {
+        text.append('\n');
+    }
+
+    public void flush() {}
+
+    /**
+     *  everything written since creation or last reset
+     */
+    public String getText() {
+        return text.toString();
+    }
+
+    public void reset() {
+        text.setLength(0);
+    }
+}
@@ -0,0 +1,28 @@
+package entity;
+
+/**
+ *  Runtime value of a function declaration or lambda expression
+ *  the frame it is evaluated in is captured once as environment, so calling it needs no search for the parent frame
+ *  and a closure passed around keeps seeing the names of the place it was created in
+ */
+public class Closure {
+    private final Function function;
+    private final Frame env;
+
+    public Closure(Function function, Frame env) {
+        this.function = function;
+        this.env = env;
+        env.capture();
+    }
+
+    public Function getFunction() {
+        return function;
+    }
+
+    /**
+     *  parent frame of every invocation
+     */
+    public Frame getEnv() {
+        return env;
+    }
+}
@@ -0,0 +1,206 @@
+package entity;
+
+import component.VarAST;
+import exception.NameError;
+
+import java.util.Arrays;
+
+/**
+ *  Entity class used to store values of the names bound in a Scope and track its parent frame
+ *  each name owns a slot allocated by Resolver, unset slot (null) means name not bound yet
+ *  shared by the tree-walking Interpreter and the closure-compiled evaluators
+ *  int/double values written by compiled code are kept unboxed: slot holds INT/DOUBLE tag, raw bits go to prims,
+ *  value gets boxed only when it is read back as an Object
+ */
+public class Frame {
+    private static final Object NONE = new Object();
+    private static final Object INT = new Object();
+    private static final Object DOUBLE = new Object();
+    private static Lexer lexer = Lexer.getLexer();
+
+    private int level;
+    private Scope scope;
+    private Object[] slots;
+    private long[] prims;
+    private Frame parent;
+    private boolean returned;
+    private boolean captured;
+
+    public Frame(Scope scope, Frame parent) {
+        this.level = scope.getLevel();
+        this.scope = scope;
+        this.parent = parent;
+        slots = new Object[scope.size()];
+    }
+
+    /**
+     *  make room for names its scope declared after the frame was created,
+     *  global frame of a program run in streaming mode grows this way between top level statements
+     */
+    public void grow() {
+        if (slots.length < scope.size()) {
+            slots = Arrays.copyOf(slots, scope.size());
+            if (prims != null) {
+                prims = Arrays.copyOf(prims, slots.length);
+            }
+        }
+    }
+
+    /**
+     *  store args into slots [0, args.length), used to bind arguments of a call
+     */
+    public void copyIn(Object[] args) {
+        System.arraycopy(args, 0, slots, 0, args.length);
+        for (int i = 0; i < args.length; i += 1) {
+            if (args[i] == null) {
+                slots[i] = NONE;
+            }
+        }
+    }
+
+    public void put(int slot, Object val) {
+        slots[slot] = val == null ? NONE : val;
+    }
+
+    public void putInt(int slot, int val) {
+        if (prims == null) {
+            prims = new long[slots.length];
+        }
+        slots[slot] = INT;
+        prims[slot] = val;
+    }
+
+    public void putDouble(int slot, double val) {
+        if (prims == null) {
+            prims = new long[slots.length];
+        }
+        slots[slot] = DOUBLE;
+        prims[slot] = Double.doubleToRawLongBits(val);
+    }
+
+    /**
+     *  value stored in slot of this frame, null when unset
+     */
+    public Object get(int slot) {
+        return value(slot);
+    }
+
+    public boolean isInt(int slot) {
+        return slots[slot] == INT;
+    }
+
+    public int getInt(int slot) {
+        return (int) prims[slot];
+    }
+
+    public boolean isDouble(int slot) {
+        return slots[slot] == DOUBLE;
+    }
+
+    public double getDouble(int slot) {
+        return Double.longBitsToDouble(prims[slot]);
+    }
+
+    /**
+     *  frame depth levels up the parent chain, following (depth, slot) address of a resolved name
+     */
+    public Frame ancestor(int depth) {
+        Frame f = this;
+        for (int i = 0; i < depth; i += 1) {
+            f = f.parent;
+        }
+        return f;
+    }
+
+    /**
+     *  boxed view of a slot: unset slot stays null, unboxed value is boxed here
+     */
+    private Object value(int slot) {
+        Object val = slots[slot];
+        if (val == NONE) {
+            return null;
+        } else if (val == INT) {
+            return (int) prims[slot];
+        } else if (val == DOUBLE) {
+            return Double.longBitsToDouble(prims[slot]);
+        }
+        return val;
+    }
+
+    /**
+     *  value bound to var following its (depth, slot) address
+     *  report error when name not found
+     */
+    public Object lookup(VarAST var) throws NameError {
+        int depth = var.getDepth();
+        if (depth >= 0) {
+            Frame f = ancestor(depth);
+            if (f.slots[var.getSlot()] != null) {
+                return f.value(var.getSlot());
+            }
+            // bound in this frame later on, fall back to enclosing frames by name
+            for (f = f.parent; f != null; f = f.parent) {
+                int slot = f.scope.slotOf(var.getName());
+                if (slot >= 0 && f.slots[slot] != null) {
+                    return f.value(slot);
+                }
+            }
+        }
+        lexer.generatorErrorMsg(var.getPosition());
+        throw new NameError("name '" + var.getName() + "' not found.");
+    }
+
+    /**
+     *  unbind every name and clear completion signal, so that frame can host next invocation of the same function
+     */
+    public void reset() {
+        Arrays.fill(slots, null);
+        returned = false;
+    }
+
+    /**
+     *  completion signal of return statement: set once return gets executed in this frame,
+     *  enclosing blocks and loops stop as soon as they see it, no exception unwinding involved
+     */
+    public void markReturned() {
+        returned = true;
+    }
+
+    public boolean hasReturned() {
+        return returned;
+    }
+
+    /**
+     *  set once a Closure takes this frame as its environment,
+     *  captured frame outlives the invocation and must not be reset to host a tail call
+     */
+    public void capture() {
+        captured = true;
+    }
+
+    public boolean isCaptured() {
+        return captured;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    public Frame getParent() {
+        return parent;
+    }
+
+    public String toString() {
+        StringBuffer sb = new StringBuffer("level: ").append(level).append("\n");
+        for (int i = 0; i < slots.length; i += 1) {
+            if (slots[i] != null) {
+                sb.append(scope.nameOf(i)).append(" : ").append(value(i)).append("\n");
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,284 @@
+package entity;
+
+import component.AST;
+import component.BlockAST;
+import component.ProgramAST;
+import exception.SyntaxError;
+import opt.PassManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ *  [Singleton]
+ *  turns source into the AST every execution engine starts from
+ *  jobs:
+ *     - run the sequential Lexer/Parser over small program
+ *     - pre-scan large program for top level statement boundaries: def/if/while/return keyword at brace depth 1,
+ *       comments skipped, collecting pragma comments on the way
+ *     - lex and parse the chunks between boundaries on a ForkJoinPool, each on its own Lexer/Parser
+ *     - stitch statements of the chunks back into the program block in order
+ *     - run the passes over the tree, or take the result from the script cache when it is on
+ *  positions are offsets into the shared Source, so line and column of each node come out the same as in a sequential parse
+ *  program with a syntax error anywhere goes through the sequential Lexer/Parser again, which reports the error exactly as before
+ */
+public class FrontEnd {
+    /**
+     *  programs shorter than this (in bytes) are parsed sequentially
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 20;
+
+    // smallest chunk worth a task of its own
+    private static final int MIN_CHUNK = 1 << 16;
+    // chunks per worker, so that a worker done early picks up more
+    private static final int CHUNKS_PER_WORKER = 4;
+    // bytes of the source pre-scanned at once
+    private static final int BLOCK = 1 << 16;
+
+    private static final byte[][] STATEMENT_KEYWORDS = {
+            {'d', 'e', 'f'}, {'i', 'f'}, {'w', 'h', 'i', 'l', 'e'}, {'r', 'e', 't', 'u', 'r', 'n'}
+    };
+
+    private static FrontEnd frontEnd = new FrontEnd();
+    private static Lexer lexer = Lexer.getLexer();
+    private static Parser parser = Parser.getParser();
+    private static PassManager passManager = PassManager.getManager();
+    private static ScriptCache scriptCache = ScriptCache.getCache();
+
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private ForkJoinPool pool;
+
+    private FrontEnd() {}
+
+    public static FrontEnd getFrontEnd() { return frontEnd; }
+
+    /**
+     *  number of threads lexing and parsing a large program, 1 keeps the front end sequential
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     *  client method
+     *  AST of program held by source with every registered pass applied, ready to be resolved
+     *  taken from the script cache when it holds the program, saved into it otherwise
+     *  (not in lazy mode, whose trees still refer to the tokens of unparsed bodies)
+     */
+    public AST build(Source source) throws SyntaxError {
+        boolean cached = scriptCache.isEnabled() && !parser.isLazy();
+        if (cached) {
+            AST root = scriptCache.load(source);
+            if (root != null) {
+                lexer.attach(source, new HashMap<>());
+                return root;
+            }
+        }
+        AST root = passManager.run(parse(source));
+        if (cached) {
+            scriptCache.store(source, root);
+        }
+        return root;
+    }
+
+    /**
+     *  return root of the AST of program held by source
+     *  tokens are let go as soon as the tree is built, except in lazy mode
+     */
+    public AST parse(Source source) throws SyntaxError {
+        if (parallelism > 1 && source.length() >= PARALLEL_THRESHOLD) {
+            AST root = parseParallel(source);
+            if (root != null) {
+                return root;
+            }
+        }
+        lexer.input(source);
+        parser.parse(lexer);
+        parser.release();
+        return parser.getRoot();
+    }
+
+    /**
+     *  root of the AST, null when some chunk fails to parse
+     */
+    private AST parseParallel(Source source) {
+        Map<Integer, String> pragmas = new HashMap<>();
+        int chunkSize = Math.max(MIN_CHUNK, source.length() / (parallelism * CHUNKS_PER_WORKER));
+        int[] bounds = split(source, chunkSize, pragmas);
+        int chunks = bounds.length - 1;
+        if (chunks < 2) {
+            return null;
+        }
+        Parser[] parsers = new Parser[chunks];
+        Lexer[] lexers = new Lexer[chunks];
+        List<List<AST>> stmts = new ArrayList<>();
+        for (int i = 0; i < chunks; i += 1) {
+            parsers[i] = new Parser();
+            lexers[i] = new Lexer();
+            lexers[i].input(source, bounds[i], bounds[i+1], pragmas);
+            stmts.add(null);
+        }
+        if (pool == null || pool.getParallelism() != parallelism) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        pool.invoke(new ChunkTask(parsers, lexers, stmts, 0, chunks, parser.isLazy()));
+
+        List<AST> program = new ArrayList<>();
+        for (List<AST> chunk : stmts) {
+            if (chunk == null) {
+                return null;
+            }
+            program.addAll(chunk);
+        }
+        for (Lexer chunkLexer : lexers) {
+            // bodies parsed lazily report their errors from now on
+            chunkLexer.setQuiet(false);
+        }
+        lexer.attach(source, pragmas);
+        ProgramAST programNode = (ProgramAST) parsers[0].getRoot();
+        BlockAST blockNode = new BlockAST();
+        blockNode.setStmtnode(program);
+        programNode.setBlockNode(blockNode);
+        return programNode;
+    }
+
+    /**
+     *  parse chunks [from, to), halving the range until a single chunk is left
+     *  statements of a chunk failing to parse stay null
+     */
+    private static class ChunkTask extends RecursiveAction {
+        private final Parser[] parsers;
+        private final Lexer[] lexers;
+        private final List<List<AST>> stmts;
+        private final int from;
+        private final int to;
+        private final boolean lazy;
+
+        ChunkTask(Parser[] parsers, Lexer[] lexers, List<List<AST>> stmts, int from, int to, boolean lazy) {
+            this.parsers = parsers;
+            this.lexers = lexers;
+            this.stmts = stmts;
+            this.from = from;
+            this.to = to;
+            this.lazy = lazy;
+        }
+
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ChunkTask(parsers, lexers, stmts, from, mid, lazy), new ChunkTask(parsers, lexers, stmts, mid, to, lazy));
+                return;
+            }
+            try {
+                stmts.set(from, parsers[from].parseChunk(lexers[from], from == 0, from == parsers.length - 1, lazy));
+            } catch (SyntaxError e) {
+                // reported by the sequential front end
+            }
+        }
+    }
+
+    /**
+     *  pre-scan: offsets where chunks start (first one 0) followed by the length of source
+     *  chunk boundary is the first statement keyword at brace depth 1 at least chunkSize bytes after the previous boundary,
+     *  preceded by a blank, a line break or '}', so that no token runs across it
+     *  comments are skipped as the Lexer skips them, pragma comments go into pragmas
+     */
+    private static int[] split(Source source, int chunkSize, Map<Integer, String> pragmas) {
+        PreScan scan = new PreScan(source);
+        int length = source.length();
+        List<Integer> bounds = new ArrayList<>();
+        bounds.add(0);
+        int last = 0;
+        int depth = 0;
+        for (int pos = 0; pos < length; pos += 1) {
+            byte c = scan.at(pos);
+            if (c == '/' && scan.at(pos+1) == '/') {
+                // "//" operator, its second '/' starts no comment
+                pos += 1;
+            } else if (c == '/' && scan.at(pos+1) == '*') {
+                int start = pos + 2;
+                pos = start;
+                while (scan.at(pos) != '*' || scan.at(pos+1) != '/') {
+                    if (pos >= length) {
+                        // comment not closed, Lexer takes it as end of input
+                        return bounds(bounds, length);
+                    }
+                    pos += 1;
+                }
+                String pragma = Lexer.pragmaOf(source, start, pos);
+                if (pragma != null) {
+                    pragmas.put(source.lineOf(pos), pragma);
+                }
+                pos += 1;
+            } else if (c == '{') {
+                depth += 1;
+            } else if (c == '}') {
+                depth -= 1;
+            } else if (depth == 1 && pos - last >= chunkSize && startsStatement(scan, pos)) {
+                bounds.add(pos);
+                last = pos;
+            }
+        }
+        return bounds(bounds, length);
+    }
+
+    private static int[] bounds(List<Integer> bounds, int length) {
+        int[] result = new int[bounds.size() + 1];
+        for (int i = 0; i < bounds.size(); i += 1) {
+            result[i] = bounds.get(i);
+        }
+        result[bounds.size()] = length;
+        return result;
+    }
+
+    /**
+     *  whether one of def/if/while/return starts at pos as a token of its own
+     */
+    private static boolean startsStatement(PreScan scan, int pos) {
+        byte before = scan.at(pos-1);
+        if (before != ' ' && before != '\t' && before != '\n' && before != '}') {
+            return false;
+        }
+        for (byte[] keyword : STATEMENT_KEYWORDS) {
+            int i = 0;
+            while (i < keyword.length && scan.at(pos+i) == keyword[i]) {
+                i += 1;
+            }
+            if (i == keyword.length) {
+                return !Lexer.isNameByte(scan.at(pos+i));
+            }
+        }
+        return false;
+    }
+
+    /**
+     *  byte access to the source through a block copied at once, 0 past the end
+     */
+    private static class PreScan {
+        private final Source source;
+        private final byte[] block = new byte[BLOCK];
+        private int blockStart = -BLOCK;
+
+        PreScan(Source source) {
+            this.source = source;
+        }
+
+        byte at(int pos) {
+            int i = pos - blockStart;
+            if (i < 0 || i >= BLOCK) {
+                // keep a few bytes before pos for looking back
+                blockStart = Math.max(0, pos - 8);
+                int len = Math.max(0, Math.min(BLOCK, source.length() - blockStart));
+                source.read(blockStart, block, 0, len);
+                Arrays.fill(block, len, BLOCK, (byte) 0);
+                i = pos - blockStart;
+            }
+            return block[i];
+        }
+    }
+}
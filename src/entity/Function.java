@@ -0,0 +1,184 @@
+package entity;
+
+import component.AST;
+import component.FunctionDelAST;
+import component.LambdaExprAST;
+import component.LazyBlockAST;
+import component.VarAST;
+import exception.SyntaxError;
+import opt.PassManager;
+
+import java.util.List;
+
+/**
+ *  Runtime description of a function declaration or lambda expression, built once by Resolver
+ *  (scope and body of function whose body is parsed lazily are attached on first call)
+ *  everything a call needs is precomputed here instead of being read off the AST on every call:
+ *     - arity, checked by a single compare
+ *     - slot of each formal parameter and frame size, arguments are bound by copying them into the new frame
+ *     - body to run, position errors of lambda are reported at, result cache when function is memoized
+ */
+public class Function {
+    private static Lexer lexer = Lexer.getLexer();
+
+    private final AST node;
+    private final String name;
+    private final boolean lambda;
+    private final int position;
+    private final int arity;
+    private final MemoCache memo;
+    // body is a LazyBlockAST and scope is null until a body left unparsed in lazy mode gets resolved on first call
+    private AST body;
+    private Scope scope;
+    private int[] paramSlots;
+    // formal parameters own slots [0, arity) in order, true unless a parameter name repeats
+    private boolean packed;
+
+    public Function(AST node) {
+        List<AST> params;
+        if (node instanceof FunctionDelAST) {
+            FunctionDelAST functionDelNode = (FunctionDelAST) node;
+            VarAST var = (VarAST) functionDelNode.getVarNode();
+            name = var.getName();
+            lambda = false;
+            position = var.getPosition();
+            params = functionDelNode.getParamNode();
+            memo = functionDelNode.getMemo();
+        } else {
+            LambdaExprAST lambdaExprNode = (LambdaExprAST) node;
+            name = lambdaExprNode.getName();
+            lambda = true;
+            position = lambdaExprNode.getPosition();
+            params = lambdaExprNode.getParams();
+            memo = null;
+        }
+        this.node = node;
+        arity = params.size();
+        body = body();
+        if (!(body instanceof LazyBlockAST)) {
+            attachBody();
+        }
+    }
+
+    /**
+     *  take scope, body and parameter slots from the resolved node,
+     *  called again by Resolver once a body left unparsed in lazy mode gets parsed and resolved
+     */
+    public void attachBody() {
+        List<AST> params;
+        if (lambda) {
+            scope = ((LambdaExprAST) node).getScope();
+            params = ((LambdaExprAST) node).getParams();
+        } else {
+            scope = ((FunctionDelAST) node).getScope();
+            params = ((FunctionDelAST) node).getParamNode();
+        }
+        body = body();
+        paramSlots = new int[arity];
+        packed = true;
+        for (int i = 0; i < arity; i += 1) {
+            paramSlots[i] = ((VarAST) params.get(i)).getSlot();
+            packed &= paramSlots[i] == i;
+        }
+    }
+
+    private AST body() {
+        return node instanceof LambdaExprAST ? ((LambdaExprAST) node).getBody() : ((FunctionDelAST) node).getBlockNode();
+    }
+
+    /**
+     *  false while body is left unparsed (lazy mode), engine calls parse() before running the first call
+     */
+    public boolean isParsed() {
+        return scope != null;
+    }
+
+    /**
+     *  lazy mode: build the body out of its tokens, run local passes over it and resolve it in the enclosing scope
+     *  body already passed the recognizer when the program was parsed, so it parses without syntax error
+     */
+    public void parse() throws SyntaxError {
+        LazyBlockAST lazyBlockNode = (LazyBlockAST) body;
+        AST block = lazyBlockNode.getParser().parseBody(lazyBlockNode);
+        if (lambda) {
+            ((LambdaExprAST) node).setBody(block);
+        } else {
+            ((FunctionDelAST) node).setBlockNode(block);
+        }
+        PassManager.getManager().runLocal(node);
+        Resolver.getResolver().resolveBody(node, lazyBlockNode.getEnclosing());
+    }
+
+    /**
+     *  get function ready for a call with argc arguments: body parsed (lazy mode) and arity checked
+     */
+    public void prepare(int argc, int site) throws SyntaxError {
+        if (!isParsed()) {
+            parse();
+        }
+        checkArity(argc, site);
+    }
+
+    /**
+     *  report error when number of arguments mismatch
+     *  error of declared function is reported at the call site, error of lambda expression at the lambda itself
+     */
+    public void checkArity(int argc, int site) throws SyntaxError {
+        if (argc != arity) {
+            lexer.generatorErrorMsg(lambda ? position : site);
+            throw new SyntaxError("number of formal params should match with real params, required " + arity + ", but got " + argc + ".");
+        }
+    }
+
+    /**
+     *  bind arguments (arity already checked) to formal parameters in frame of this function
+     */
+    public void bind(Frame frame, Object[] args) {
+        if (packed) {
+            frame.copyIn(args);
+        } else {
+            for (int i = 0; i < arity; i += 1) {
+                frame.put(paramSlots[i], args[i]);
+            }
+        }
+    }
+
+    /**
+     *  FunctionDelAST or LambdaExprAST node
+     */
+    public AST getNode() {
+        return node;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isLambda() {
+        return lambda;
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    public int getFrameSize() {
+        return scope.size();
+    }
+
+    public AST getBody() {
+        return body;
+    }
+
+    public int getArity() {
+        return arity;
+    }
+
+    public int[] getParamSlots() {
+        return paramSlots;
+    }
+
+    public MemoCache getMemo() {
+        return memo;
+    }
+}
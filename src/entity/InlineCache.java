@@ -0,0 +1,55 @@
+package entity;
+
+import java.util.Arrays;
+
+/**
+ *  Inline cache of one call site: functions called there, each with the call target an engine prepared for it
+ *  (body AST for the tree-walking engines, compiled body for the closure compiler)
+ *  a function is added once it is parsed and its arity matched the number of arguments of the site,
+ *  so a call recognized by the identity check on its Function skips both checks and goes straight to the target
+ *  state life cycle:
+ *     empty --(first call)--> monomorphic --(other function)--> polymorphic (up to MAX_ENTRIES functions) --(one more)--> megamorphic
+ *  megamorphic site stops caching and gets every call ready anew
+ *  entries are keyed by Function, not by closure: closures of one lambda expression share an entry,
+ *  and the cache keeps no closure (nor the frame it captured) alive
+ */
+public final class InlineCache<T> {
+    private static final int MAX_ENTRIES = 4;
+
+    private final Function[] functions = new Function[MAX_ENTRIES];
+    private final Object[] targets = new Object[MAX_ENTRIES];
+    private int size;
+    private boolean megamorphic;
+
+    /**
+     *  call target cached for function, null when function has not been called here yet (or site is megamorphic)
+     */
+    @SuppressWarnings("unchecked")
+    public T lookup(Function function) {
+        for (int i = 0; i < size; i += 1) {
+            if (functions[i] == function) {
+                return (T) targets[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     *  remember target of function, which Function.prepare() got ready for a call at this site
+     */
+    public void add(Function function, T target) {
+        if (megamorphic) {
+            return;
+        }
+        if (size < MAX_ENTRIES) {
+            functions[size] = function;
+            targets[size] = target;
+            size += 1;
+        } else {
+            megamorphic = true;
+            size = 0;
+            Arrays.fill(functions, null);
+            Arrays.fill(targets, null);
+        }
+    }
+}
@@ -1,10 +1,16 @@
 package entity;
 
+import closure.ClosureCompiler;
+import closure.Evaluator;
 import exception.NameError;
 import exception.SyntaxError;
 import component.*;
 import exception.TypeError;
 import exception.ZeroDivisionError;
+import jit.CompiledFunction;
+import jit.JitCompiler;
+import node.BinaryNode;
+import opt.PassManager;
 
 import java.util.*;
 
@@ -20,13 +26,18 @@ import java.util.*;
 public class Interpreter {
     private static Interpreter interpreter = new Interpreter();
     private static Parser parser = Parser.getParser();
+    private static FrontEnd frontEnd = FrontEnd.getFrontEnd();
     private static Lexer lexer = Lexer.getLexer();
-    private static Frame globalFrame = new Frame(0, null);
+    private static PassManager passManager = PassManager.getManager();
+    private static Resolver resolver = Resolver.getResolver();
+    private static JitCompiler jit = JitCompiler.getJit();
+    private static ClosureCompiler closureCompiler = ClosureCompiler.getCompiler();
     private static Stack stack = new Stack();
 
-    static {
-        BuiltinFunctionInit();
-    }
+    /**
+     *  back-edges a while loop takes in the Interpreter before being replaced by compiled code
+     */
+    private static final int OSR_THRESHOLD = 1000;
 
     /**
      *  AST traversing process will always be based on the frame(active) standing at the top of the stack
@@ -48,59 +59,82 @@ public class Interpreter {
         }
     }
 
+    private OutputSink output = BufferedSink.stdout();
+    // global frame of the program run in streaming mode, null otherwise
+    private Frame streamingFrame;
+
+    private Interpreter() {}
+
+    public static Interpreter getInterpreter() { return interpreter; }
+
     /**
-     *  Entity class used to store name-value pair and track its parent frame
-     *  support put and lookup method
+     *  sink receiving print output and error reports of every execution engine
+     *  buffered output is flushed by whoever installed the sink (AMython flushes it once the run is over)
      */
-    private static class Frame {
-        private int level;
-        private Map<String, Object> mapping;
-        private Frame parent;
+    public OutputSink getOutput() { return output; }
 
-        public Frame(int level, Frame parent) {
-            this.level = level;
-            this.parent = parent;
-            mapping = new HashMap<>();
-        }
+    public void setOutput(OutputSink output) { this.output = output; }
 
-        private void put(String name, Object val) {
-            mapping.put(name, val);
-        }
+    /**
+     *  client method
+     *  start to interpret input program through visiting each node in the AST
+     */
+    public Object interpret(Source source) throws SyntaxError, ZeroDivisionError, NameError, TypeError {
+        AST root = frontEnd.build(source);
+        resolver.resolve(root);
+        return visit(root);
+    }
 
-        private Object lookup(Token token) throws NameError {
-            Frame f = this;
-            String name = (String) token.getValue();
-            while (f != null) {
-                if (f.mapping.containsKey(name)) {
-                    return f.mapping.get(name);
-                }
-                f = f.parent;
-            }
-            lexer.generatorErrorMsg(token.getLineNo(), token.getColumnNo());
-            throw new NameError("name '" + name + "' not found.");
-        }
+    /**
+     *  client method, streaming mode
+     *  run each top level statement as soon as Parser completes it, parsing and execution interleave on the calling thread:
+     *  output of a statement comes before the rest of the file is even scanned
+     *  statements go through local passes only, purity analysis needs the whole program so no function is memoized
+     */
+    public Object interpretStreaming(Source source) throws SyntaxError, ZeroDivisionError, NameError, TypeError {
+        lexer.input(source);
+        TopLevel topLevel = new TopLevel();
+        parser.parseStreaming(lexer, topLevel);
+        stack.pop();
+        streamingFrame = null;
+        return null;
+    }
 
-        public String toString() {
-            StringBuffer sb = new StringBuffer("level: ").append(level).append("\n");
-            for (Map.Entry<String, Object> entry : mapping.entrySet()) {
-                sb.append(entry.getKey()).append(" : ").append(entry.getValue()).append("\n");
-            }
-            return sb.toString();
+    /**
+     *  get function ready for the call, see Function.prepare
+     *  in streaming mode, a body parsed lazily may read names not bound yet, which the global scope gets slots for
+     */
+    private void prepare(Function function, int argc, int site) throws SyntaxError {
+        function.prepare(argc, site);
+        if (streamingFrame != null) {
+            streamingFrame.grow();
         }
     }
 
-    private Interpreter() {}
-
-    public static Interpreter getInterpreter() { return interpreter; }
-
     /**
-     *  client method
-     *  start to interpret input program through visiting each node in the AST
+     *  executes statements handed over by Parser in the global frame, which grows along with the global scope
+     *  statements following a top level return are still parsed (and checked) but no longer run
      */
-    public Object interpret(String source) throws SyntaxError, ZeroDivisionError, NameError, TypeError {
-        lexer.input(source);
-        parser.parse(lexer);
-        return visit(parser.getRoot());
+    private class TopLevel implements Parser.StatementHandler {
+        private Frame globalFrame;
+
+        public void begin(ProgramAST programNode) {
+            globalFrame = new Frame(resolver.begin(programNode), null);
+            streamingFrame = globalFrame;
+            BuiltinFunctions.bind(globalFrame);
+            stack.push(globalFrame);
+            globalFrame.put(((VarAST)programNode.getVarNode()).getSlot(), "CASE TEST");
+        }
+
+        public void statement(AST stmt) throws SyntaxError, ZeroDivisionError, NameError, TypeError {
+            if (globalFrame.hasReturned()) {
+                return;
+            }
+            stmt = passManager.runLocal(stmt);
+            resolver.resolveStatement(stmt);
+            globalFrame.grow();
+            visit(stmt);
+        }
     }
 
     /**
@@ -156,9 +190,9 @@ public class Interpreter {
     private Object visitAssignAST(AST node) throws ZeroDivisionError, SyntaxError, NameError, TypeError {
         AssignAST assignNode = (AssignAST)node;
         Frame frame = stack.peek();
-        String name = ((VarAST)assignNode.getVarNode()).getName();
+        int slot = ((VarAST)assignNode.getVarNode()).getSlot();
         Object val = visit(assignNode.getExprNode());
-        frame.put(name, val);
+        frame.put(slot, val);
         return null;
     }
 
@@ -166,12 +200,17 @@ public class Interpreter {
      *  visit Block node:
      *    visit each statement node
      *    keep track of return value of each statement, return the last one
+     *    stop right after a statement completing with return, returning its value
      */
     private Object visitBlockAST(AST node) throws ZeroDivisionError, SyntaxError, NameError, TypeError {
         BlockAST blockNode = (BlockAST)node;
+        Frame frame = stack.peek();
         Object res = null;
         for (AST stmt : blockNode.getStmtnode()) {
             res = visit(stmt);
+            if (frame.hasReturned()) {
+                break;
+            }
         }
         return res;
     }
@@ -191,183 +230,136 @@ public class Interpreter {
     }
 
 
-    /**
-     *  do corresponding operation for two double operands
-     */
-    private Object double_ops(String operator, double left, double right) {
-        if (operator.equals("MULT")) {
-            return left * right;
-        } else if (operator.equals("DIV") || operator.equals("TRUEDIV")) {
-            return left / right;
-        } else if (operator.equals("PLUS")) {
-            return left + right;
-        } else if (operator.equals("MINUS")){
-            return left - right;
-        } else if (operator.equals("GT")) {
-            return left > right;
-        } else if (operator.equals("LT")) {
-            return left < right;
-        } else if (operator.equals("GE")) {
-            return left >= right;
-        } else if (operator.equals("LE")) {
-            return left <= right;
-        } else if (operator.equals("EQ")) {
-            return left == right;
-        } else {
-            return left != right;
-        }
-    }
-
-    /**
-     *  do corresponding operation for two int operands
-     */
-    private Object int_ops(String operator, int left, int right, DoubleOpAST node) throws ZeroDivisionError {
-        if (operator.equals("MULT")) {
-            return left * right;
-        } else if (operator.equals("DIV")) {
-            try {
-                return left / right;
-            } catch (Exception e) {
-                lexer.generatorErrorMsg(node.getOperator().getLineNo(), node.getOperator().getColumnNo());
-                throw new ZeroDivisionError("division by zero.");
-            }
-        } else if (operator.equals("TRUEDIV")) {
-            return (double) left / right;
-        } else if (operator.equals("PLUS")) {
-            return left + right;
-        } else if (operator.equals("MINUS")){
-            return left - right;
-        } else if (operator.equals("GT")) {
-            return left > right;
-        } else if (operator.equals("LT")) {
-            return left < right;
-        } else if (operator.equals("GE")) {
-            return left >= right;
-        } else if (operator.equals("LE")) {
-            return left <= right;
-        } else if (operator.equals("EQ")) {
-            return left == right;
-        } else {
-            return left != right;
-        }
-    }
-
     /**
      *  visit DoubleOp node:
-     *    do type converting for two operands
-     *    apply operator to two operands, return the gotten result
+     *    evaluate two operands
+     *    apply operator through the node specialized for observed operand types, return the gotten result
      */
     private Object visitDoubleOpAST(AST node) throws ZeroDivisionError, NameError, SyntaxError, TypeError {
         DoubleOpAST doubleOpNode = (DoubleOpAST)node;
-        String operator = doubleOpNode.getOperator().getName();
         Object leftOperand = visit(doubleOpNode.getLeftOperand());
         Object rightOperand = visit(doubleOpNode.getRightOperand());
-        if (leftOperand instanceof Number && rightOperand instanceof Number) {
-            if (leftOperand instanceof Double || rightOperand instanceof Double) {
-                double left = leftOperand instanceof Double ? (double) leftOperand : (int) leftOperand;
-                double right = rightOperand instanceof Double ? (double) rightOperand : (int) rightOperand;
-                return double_ops(operator, left, right);
-            } else {
-                int left = (int) leftOperand;
-                int right = (int) rightOperand;
-                return int_ops(operator, left, right, doubleOpNode);
-            }
-        } else {
-            if (leftOperand instanceof Double || rightOperand instanceof Double) {
-                double left = leftOperand instanceof Double ? (double)leftOperand : boolean_to_int(leftOperand);
-                double right = rightOperand instanceof Double ? (double)rightOperand : boolean_to_int(rightOperand);
-                return double_ops(operator, left, right);
-            } else {
-                int left = leftOperand instanceof Integer ? (int)leftOperand : boolean_to_int(leftOperand);
-                int right = rightOperand instanceof Integer ? (int)rightOperand : boolean_to_int(rightOperand);
-                return int_ops(operator, left, right, doubleOpNode);
-            }
-        }
+        return BinaryNode.of(doubleOpNode).execute(leftOperand, rightOperand);
     }
 
     /**
      *  visit FunctionCall node:
      *    eval function name and parameters passed into, eval function body and return gotten result
      */
-    /**
-     *  tracing back looking for value bound to name starting from current frame(active)\
-     *  report error when name not found
-     */
-    private Frame getParentFrame(String name) {
-        Frame frame = stack.peek();
-        while (frame != null) {
-            if (frame.mapping.containsKey(name)) {
-                return frame;
-            }
-            frame = frame.parent;
-        }
-        return null;
-    }
-
-    /**
-     *  bind real parameters passed into to formal parameters in the current frame(active)
-     *  report error when number of parameters mismatch
-     */
-    private void formalParamsInit(Frame frame, List<AST> formalParams, List<Object> vals, Token token) throws SyntaxError {
-        if (formalParams.size() != vals.size()) {
-            lexer.generatorErrorMsg(token.getLineNo(), token.getColumnNo());
-            throw new SyntaxError("number of formal params should match with real params, required " + formalParams.size() + ", but got " + vals.size() + ".");
-        }
-        for (int i = 0; i < formalParams.size(); i += 1) {
-            frame.put(((VarAST)formalParams.get(i)).getName(), vals.get(i));
-        }
-    }
-
     /**
      *  core method for function call execution
      *  dispatch based on function type to built-in functions, user-defined function, lambda expression
+     *  body of user-defined callee comes from the inline cache of the call site, call linked to built-in function skips it
+     *  call in tail position is handed back to the invocation loop of the caller instead of being run here
      */
     private Object visitFunctionCallAST(AST node) throws ZeroDivisionError, SyntaxError, NameError, TypeError {
         FunctionCallAST functionCallNode = (FunctionCallAST)node;
+        int site = ((VarAST)functionCallNode.getVarNode()).getPosition();
+        if (functionCallNode.getBuiltin() != null) {
+            return BuiltinFunctionDispatcher(functionCallNode.getBuiltin(), functionCallNode.getExprNode(), site);
+        }
         Object findRes = visit(functionCallNode.getVarNode());
-        if (!(findRes instanceof LambdaExprAST) && !(findRes instanceof FunctionDelAST) && (!(findRes instanceof String) || !(((String)findRes).startsWith("$")))) {
-            Token token = ((VarAST)functionCallNode.getVarNode()).getToken();
-            lexer.generatorErrorMsg(token.getLineNo(), token.getColumnNo());
+        List<AST> exprs = functionCallNode.getExprNode();
+        if (findRes instanceof Builtin) {
+            return BuiltinFunctionDispatcher((Builtin) findRes, exprs, site);
+        } else if (!(findRes instanceof Closure)) {
+            lexer.generatorErrorMsg(site);
             throw new TypeError(((VarAST) functionCallNode.getVarNode()).getName() + " is not callable.");
         }
-
-        List<Object> vals = new ArrayList<>();
-        for (int i = 0; i < functionCallNode.getExprNode().size(); i += 1) {
-            vals.add(visit(functionCallNode.getExprNode().get(i)));
+        Object[] args = new Object[exprs.size()];
+        for (int i = 0; i < args.length; i += 1) {
+            args[i] = visit(exprs.get(i));
         }
-        if (findRes instanceof String) {
-            return BuiltinFunctionDispatcher(((VarAST)functionCallNode.getVarNode()).getToken(), vals);
-        } else if (findRes instanceof FunctionDelAST){
-            FunctionDelAST declaredfunction = (FunctionDelAST) findRes;
-            Frame parent = getParentFrame(((VarAST) declaredfunction.getVarNode()).getName());
-            Frame frame = new Frame(parent.level + 1, parent);
-            formalParamsInit(frame, declaredfunction.getParamNode(), vals, ((VarAST) functionCallNode.getVarNode()).getToken());
-            stack.push(frame);
-            Object res = visit(declaredfunction.getBlockNode());
-            stack.pop();
-            return res;
-        } else {
-            LambdaExprAST lambdaExprNode = (LambdaExprAST)findRes;
-            Frame parent = getParentFrame(lambdaExprNode.getName());
-            Frame frame = new Frame(parent.level + 1, parent);
-            formalParamsInit(frame, lambdaExprNode.getParams(), vals, lambdaExprNode.getToken());
-            stack.push(frame);
-            Object res = visit(lambdaExprNode.getBody());
-            stack.pop();
-            return res;
+        Closure closure = (Closure) findRes;
+        if (functionCallNode.isTailCall()) {
+            return new TailCall(closure, args, site);
+        }
+        Function function = closure.getFunction();
+        InlineCache<AST> cache = functionCallNode.getCallCache();
+        AST body = cache.lookup(function);
+        if (body == null) {
+            prepare(function, args.length, site);
+            body = function.getBody();
+            cache.add(function, body);
+        }
+        return invoke(closure, body, args, site);
+    }
+
+    /**
+     *  run user-defined function/lambda expression in a new frame whose parent is the environment captured by its closure
+     *  site is the position of the call
+     *  tail call coming back as value is run in place of current invocation (trampoline):
+     *  frame is reused when callee shares scope and parent with it and no closure captured it, pushed anew otherwise
+     *  call of memoized function is answered from its cache, result of a missed call is stored for every invocation it completes
+     *  body is the one the inline cache of the call site holds, null when function is not ready for the call yet
+     */
+    private Object invoke(Closure closure, AST body, Object[] args, int site) throws ZeroDivisionError, SyntaxError, NameError, TypeError {
+        Frame frame = null;
+        List<MemoCache> memos = null;
+        List<Object[]> keys = null;
+        while (true) {
+            Function function = closure.getFunction();
+            if (body == null) {
+                prepare(function, args.length, site);
+                body = function.getBody();
+            }
+            Frame parent = closure.getEnv();
+            Object res = CompiledFunction.DEOPTIMIZED;
+            MemoCache memo = function.getMemo();
+            if (memo != null && MemoCache.isCacheable(args)) {
+                res = memo.lookup(args);
+                if (res == MemoCache.MISSING) {
+                    if (memos == null) {
+                        memos = new ArrayList<>();
+                        keys = new ArrayList<>();
+                    }
+                    memos.add(memo);
+                    keys.add(args);
+                    res = CompiledFunction.DEOPTIMIZED;
+                }
+            } else if (memo == null) {
+                res = jit.invoke(function.getNode(), parent, Arrays.asList(args));
+            }
+            if (res == CompiledFunction.DEOPTIMIZED) {
+                if (frame != null && frame.getScope() == function.getScope() && frame.getParent() == parent && !frame.isCaptured()) {
+                    frame.reset();
+                } else {
+                    if (frame != null) {
+                        stack.pop();
+                    }
+                    frame = new Frame(function.getScope(), parent);
+                    stack.push(frame);
+                }
+                function.bind(frame, args);
+                res = visit(body);
+            }
+            if (!(res instanceof TailCall)) {
+                if (frame != null) {
+                    stack.pop();
+                }
+                for (int i = 0; memos != null && i < memos.size(); i += 1) {
+                    memos.get(i).store(keys.get(i), res);
+                }
+                return res;
+            }
+            TailCall tailCall = (TailCall) res;
+            closure = tailCall.getClosure();
+            args = tailCall.getArgs();
+            site = tailCall.getSite();
+            body = null;
         }
     }
 
     /**
      *  visit FunctionDec node:
-     *    bound function body to its name in the current frame(active)
+     *    bound closure of function body over the current frame(active) to its name
      *    return nothing
      */
     private Object visitFunctionDelAST(AST node) {
         FunctionDelAST functionDelNode = (FunctionDelAST)node;
         Frame frame = stack.peek();
-        String name = ((VarAST)functionDelNode.getVarNode()).getName();
-        frame.put(name, node);
+        int slot = ((VarAST)functionDelNode.getVarNode()).getSlot();
+        frame.put(slot, new Closure(functionDelNode.getFunction(), frame));
         return null;
     }
 
@@ -376,7 +368,7 @@ public class Interpreter {
      *    return its val attr
      */
     private Object visitNumericDoubleAST(AST node) {
-        return ((NumericDoubleAST)node).getVal();
+        return ((NumericDoubleAST)node).getBoxedVal();
     }
 
     /**
@@ -384,7 +376,7 @@ public class Interpreter {
      *    return its val attr
      */
     private Object visitNumericIntAST(AST node) {
-        return ((NumericIntAST)node).getVal();
+        return ((NumericIntAST)node).getBoxedVal();
     }
 
     /**
@@ -402,8 +394,10 @@ public class Interpreter {
      */
     private Object visitProgramAST(AST node) throws ZeroDivisionError, SyntaxError, NameError, TypeError {
         ProgramAST programNode = (ProgramAST)node;
+        Frame globalFrame = new Frame(programNode.getScope(), null);
+        BuiltinFunctions.bind(globalFrame);
         stack.push(globalFrame);
-        globalFrame.put(((VarAST)programNode.getVarNode()).getName(), "CASE TEST");
+        globalFrame.put(((VarAST)programNode.getVarNode()).getSlot(), "CASE TEST");
         visit(programNode.getBlockNode());
         stack.pop();
         return null;
@@ -415,20 +409,20 @@ public class Interpreter {
      */
     private Object visitSingleOpAST(AST node) throws ZeroDivisionError, SyntaxError, NameError, TypeError {
         SingleOpAST singleOpNode = (SingleOpAST)node;
-        Token token = singleOpNode.getOperator();
         Object val = visit(singleOpNode.getOperand());
-        if (token.getName().equals("PLUS")) {
-            if (val instanceof Double) {
-                return (double)val;
-            } else {
-                return val instanceof Integer ? (int)val : boolean_to_int(val);
-            }
-        } else {
-            if (val instanceof Double) {
-                return -(double)val;
-            } else {
-                return val instanceof Integer ? -(int)val : -boolean_to_int(val);
-            }
+        switch (singleOpNode.getOperatorCode()) {
+            case BinaryNode.ADD:
+                if (val instanceof Double) {
+                    return (double)val;
+                } else {
+                    return val instanceof Integer ? (int)val : boolean_to_int(val);
+                }
+            default:
+                if (val instanceof Double) {
+                    return -(double)val;
+                } else {
+                    return val instanceof Integer ? -(int)val : -boolean_to_int(val);
+                }
         }
     }
 
@@ -439,109 +433,45 @@ public class Interpreter {
      */
     private Object visitVarAST(AST node) throws NameError {
         VarAST var = (VarAST)node;
-        Token token = var.getToken();
         Frame frame = stack.peek();
-        Object val = frame.lookup(token);
+        Object val = frame.lookup(var);
         return val;
     }
 
     /**
      *  visit Return node:
+     *    mark frame(active) as returned so that enclosing blocks and loops stop
      *    return value of expr returned
      */
     private Object visitReturnAST(AST node) throws NameError, ZeroDivisionError, SyntaxError, TypeError {
         ReturnAST returnNode = (ReturnAST)node;
-        return visit(returnNode.getExpr());
-    }
-
-    /**
-     *  FunctionCall node branch: built-in functions
-     *  initialization for built-in function by putting name-$name pair in the global frame
-     */
-    private static void BuiltinFunctionInit() {
-        String[] function_list = new String[] {"print", "min", "max", "abs", "sum"};
-        for (String function : function_list) {
-            globalFrame.put(function, "$"+function);
-        }
+        Object val = visit(returnNode.getExpr());
+        stack.peek().markReturned();
+        return val;
     }
 
     /**
-     *  built-in functions dispatcher for executing corresponding function based on called name
+     *  built-in functions dispatcher evaluating arguments straight into the fixed-arity entry point of called function
      *  check validity based on corresponding rule of called function
      */
-    private Object BuiltinFunctionDispatcher(Token token, List<Object> vals) throws TypeError {
-        String name = (String) token.getValue();
-        if (name.equals("print")) {
-            StringBuffer sb = new StringBuffer();
-            for (Object o : vals) {
-                sb.append(o).append(" ");
-            }
-            System.out.println(sb.toString());
-            return null;
-        } else if (name.equals("min")) {
-            if (vals.size() < 1) {
-                lexer.generatorErrorMsg(token.getLineNo(), token.getColumnNo());
-                throw new TypeError("min requires at least 1 argument but got 0.");
-            }
-            int idx = 0;
-            double min = vals.get(idx) instanceof Double ? (double)vals.get(idx) : (int)vals.get(idx);
-            for (int i = 1; i < vals.size(); i += 1) {
-                double other = vals.get(i) instanceof Double ? (double)vals.get(i) : (int) vals.get(i);
-                if (other < min) {
-                    min = other;
-                    idx = i;
-                }
-            }
-            return vals.get(idx);
-        } else if (name.equals("max")) {
-            if (vals.size() < 1) {
-                lexer.generatorErrorMsg(token.getLineNo(), token.getColumnNo());
-                throw new TypeError("max requires at least 1 argument but got 0.");
-            }
-            int idx = 0;
-            double max = vals.get(idx) instanceof Double ? (double)vals.get(idx) : (int)vals.get(idx);
-            for (int i = 1; i < vals.size(); i += 1) {
-                double other = vals.get(i) instanceof Double ? (double)vals.get(i) : (int) vals.get(i);
-                if (other > max) {
-                    max = other;
-                    idx = i;
-                }
+    private Object BuiltinFunctionDispatcher(Builtin builtin, List<AST> exprs, int site) throws ZeroDivisionError, SyntaxError, NameError, TypeError {
+        switch (exprs.size()) {
+            case 0:
+                return builtin.call0(site);
+            case 1:
+                return builtin.call1(visit(exprs.get(0)), site);
+            case 2: {
+                Object arg0 = visit(exprs.get(0));
+                Object arg1 = visit(exprs.get(1));
+                return builtin.call2(arg0, arg1, site);
             }
-            return vals.get(idx);
-        } else if (name.equals("sum")) {
-            if (vals.size() < 1) {
-                lexer.generatorErrorMsg(token.getLineNo(), token.getColumnNo());
-                throw new TypeError("sum requires at least 1 argument but got 0.");
-            }
-            double acc = 0;
-            int count = 0;
-            for (Object o : vals) {
-                if (o instanceof Double) {
-                    count += 1;
-                    acc += (double)o;
-                } else {
-                    acc += (int)o;
+            default: {
+                Object[] args = new Object[exprs.size()];
+                for (int i = 0; i < args.length; i += 1) {
+                    args[i] = visit(exprs.get(i));
                 }
+                return builtin.call(args, site);
             }
-            if (count > 0) {
-                return acc;
-            } else {
-                return (int)acc;
-            }
-        } else if (name.equals("abs")){
-            if (vals.size() != 1) {
-                lexer.generatorErrorMsg(token.getLineNo(), token.getColumnNo());
-                throw new TypeError("abs requires exact 1 argument but got " + vals.size() + ".");
-            }
-            Object o = vals.get(0);
-            if (o instanceof Double) {
-                return Math.abs((double)o);
-            } else {
-                return Math.abs((int)o);
-            }
-        } else {
-            lexer.generatorErrorMsg(token.getLineNo(), token.getColumnNo());
-            throw new TypeError("Not defined built-in function.");
         }
     }
 
@@ -580,22 +510,46 @@ public class Interpreter {
     /**
      *  visit While loop node:
      *    keep visiting while body until the evaluated value of its predicate is false
-     *    return nothing
+     *    count back-edges, once loop gets hot transfer it to closure-compiled code in the middle of iteration (OSR)
+     *    return nothing, or value of return statement completing the body
      */
     private Object visitWhileStmtAST(AST node) throws ZeroDivisionError, TypeError, SyntaxError, NameError {
         WhileStmtAST whileStmtNOde = (WhileStmtAST)node;
+        if (whileStmtNOde.getOsrCode() != null) {
+            return whileStmtNOde.getOsrCode().eval(stack.peek());
+        }
         while (convertToBoolean(visit(whileStmtNOde.getPredicate()))) {
-            visit(whileStmtNOde.getBody());
+            Object res = visit(whileStmtNOde.getBody());
+            if (stack.peek().hasReturned()) {
+                return res;
+            }
+            whileStmtNOde.setBackEdges(whileStmtNOde.getBackEdges() + 1);
+            if (whileStmtNOde.getBackEdges() >= OSR_THRESHOLD) {
+                return onStackReplace(whileStmtNOde);
+            }
         }
         return null;
     }
 
+    /**
+     *  compile hot loop as a whole and continue it from the next predicate evaluation
+     *  compiled loop runs on the current frame(active), so every live variable is carried over as it is
+     */
+    private Object onStackReplace(WhileStmtAST whileStmtNode) throws ZeroDivisionError, TypeError, SyntaxError, NameError {
+        Evaluator loop = whileStmtNode.getOsrCode();
+        if (loop == null) {
+            loop = closureCompiler.compile(whileStmtNode);
+            whileStmtNode.setOsrCode(loop);
+        }
+        return loop.eval(stack.peek());
+    }
+
     /**
      *  visit lambda node:
-     *    return itself
+     *    return its closure over the current frame(active)
      */
     private Object visitLambdaExprAST(AST node) {
-        return node;
+        return new Closure(((LambdaExprAST) node).getFunction(), stack.peek());
     }
 
 }
@@ -2,354 +2,521 @@ package entity;
 
 import exception.SyntaxError;
 
-import java.util.*;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  *  [Singleton]
- *  given source input, supplying token instance each time Parser call getNextToken() method.
+ *  given source input, appending next token to the TokenBuffer each time Parser call scan() method.
  *  jobs:
  *    - do token-level checking.
  *    - parse and specify token type.
+ *  scanning works on the UTF-8 bytes of the Source copied window by window into a small array (0 past the end as sentinel),
+ *  bytes are classified through a 128-entry table,
+ *  every byte of a multi-byte character is invalid outside comments;
+ *  end of input is reported by an EOF token, a token cut off by the end of input counts as end of input as well
  */
 public class Lexer {
-    private static Map<String, String> KEYWORDS;
-    private static Set<Character> WHITESPACE;
-    private static Set<Character> NUMBER;
-    private static Set<Character> NAME;
-    private static Map<String, String> OPERATORS;
-    private static Map<Character, String> DELIMITER;
+    // character classes
+    private static final byte INVALID = 0;
+    private static final byte BLANK = 1;
+    private static final byte NEWLINE = 2;
+    private static final byte DIGIT = 3;
+    private static final byte ALPHA = 4;
+    private static final byte DOT = 5;
+    private static final byte MINUS = 6;
+    private static final byte OPERATOR = 7;
+    private static final byte DELIMITER = 8;
+    private static final byte END = 9;
+
+    private static final byte[] CLASSES = new byte[128];
+    // type of token made of the single character, two-character operators are decided by the scanner
+    private static final TokenType[] SINGLES = new TokenType[128];
+
+    // perfect hash table of keywords (True/False included), see keywordSlot()
+    private static final int KEYWORD_SLOTS = 16;
+    private static final String[] KEYWORDS = new String[KEYWORD_SLOTS];
+    private static final TokenType[] KEYWORD_TYPES = new TokenType[KEYWORD_SLOTS];
+
+    private static final long NOT_INT = Long.MIN_VALUE;
+
+    // bytes of the source scanned at once, and how far back of the requested position a refilled window starts
+    private static final int WINDOW = 1 << 16;
+    private static final int LOOKBACK = 1 << 10;
 
     private static Lexer lexer = new Lexer();
 
-    private int lineNo;
-    private int columnNo;
-    private String source;
+    private Source source;
+    private int length;
+    private final byte[] window = new byte[WINDOW];
+    // position of window[0], window is refilled once scanning leaves it
+    private int windowStart;
     private int cursor;
-    private String[] segs;
+    private TokenBuffer tokens;
+    // index of EOF token once input is exhausted, -1 before
+    private int eof;
+    // pragma comments (e.g. /*@nomemo*/) keyed by line No. the comment ends on
+    private Map<Integer, String> pragmas;
+    // error messages are left to the sequential front end (chunk scanned by the parallel front end)
+    private boolean quiet;
 
     static {
         init();
     }
 
-    private Lexer() {}
+    /**
+     *  lexers other than the singleton scan chunks for the parallel front end
+     */
+    Lexer() {}
 
     public static Lexer getLexer() { return lexer; }
 
     /**
-     *  get the whole input string of target language source file
+     *  get the source of target language program
      *  do several initial operations
      */
-    public void input(String source) {
+    public void input(Source source) {
         this.source = source;
-        segs = source.split("\n");
-        lineNo = 1;
-        columnNo = 1;
+        length = source.length();
         cursor = 0;
+        fill(0);
+        tokens = new TokenBuffer(source);
+        eof = -1;
+        pragmas = new HashMap<>();
+        quiet = false;
+    }
+
+    /**
+     *  scan bytes [start, end) of source only, EOF token comes at end (chunk of the parallel front end)
+     *  pragmas found by the pre-scan are known up front, since the one of a function may sit in the chunk before
+     *  errors are not reported until setQuiet(false)
+     */
+    void input(Source source, int start, int end, Map<Integer, String> pragmas) {
+        this.source = source;
+        length = end;
+        cursor = start;
+        fill(start);
+        tokens = new TokenBuffer(source, end - start);
+        eof = -1;
+        this.pragmas = new HashMap<>(pragmas);
+        quiet = true;
+    }
+
+    /**
+     *  take source whose tokens have been scanned by the parallel front end, for reporting errors at its positions
+     */
+    void attach(Source source, Map<Integer, String> pragmas) {
+        this.source = source;
+        length = source.length();
+        tokens = null;
+        eof = -1;
+        this.pragmas = pragmas;
+        quiet = false;
+    }
+
+    void setQuiet(boolean quiet) {
+        this.quiet = quiet;
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    /**
+     *  tokens scanned so far
+     */
+    public TokenBuffer getTokens() {
+        return tokens;
+    }
+
+    /**
+     *  drop the tokens once the tree is built, errors are still reported at positions of the source
+     */
+    void release() {
+        tokens = null;
     }
 
     /**
-     *  using line No. to index each line for error printing
+     *  whether pragma comment of the given name ends on the line of pos or the line right before it
      */
-    private String getSegByNo(int lno) {
-        return segs[lno-1];
+    public boolean hasPragma(String name, int pos) {
+        if (pragmas.isEmpty()) {
+            return false;
+        }
+        int lno = source.lineOf(pos);
+        return name.equals(pragmas.get(lno)) || name.equals(pragmas.get(lno-1));
     }
 
     /**
-     *  print error message in the terminal
+     *  print error message into the output sink, after whatever the program has printed so far
      */
-    public void generatorErrorMsg(int lno, int cno) {
+    public void generatorErrorMsg(int pos) {
+        if (quiet) {
+            return;
+        }
+        int lno = source.lineOf(pos);
+        int cno = source.columnOf(pos);
+        String line = source.line(lno);
         String errortitle = "Error occured at line " + lno;
-        String errorline = "  " + getSegByNo(lno);
-        String prefix = "  " + getSegByNo(lno).substring(0, cno);
-        StringBuffer sb = new StringBuffer();
+        String errorline = "  " + line;
+        String prefix = "  " + line.substring(0, cno);
+        StringBuilder sb = new StringBuilder();
         for (int i = 0; i < prefix.length()-1; i += 1) {
             sb.append(" ");
         }
-        System.out.println(errortitle);
-        System.out.println(errorline);
-        System.out.println(sb.append("^").toString());
+        OutputSink output = Interpreter.getInterpreter().getOutput();
+        output.println(errortitle);
+        output.println(errorline);
+        output.println(sb.append("^").toString());
     }
 
     /**
      *  language elements initialization entry
      */
     private static void init() {
-        KeywordInit();
-        WhitespaceInit();
-        NumberInit();
-        NameInit();
-        OperatorInit();
-        DelimiterInit();
-    }
-
-    private static void KeywordInit() {
-        KEYWORDS = new HashMap<>();
-        String[] keywords = new String[] {"PROGRAM", "while", "def", "if", "else", "elif", "for", "return", "lambda"};
-        String[] names = new String[] {"PROGRAM", "WHILE", "DEF", "IF", "ELSE", "ELIF", "FOR", "RETURN", "LAMBDA"};
+        classify(" \t", BLANK);
+        classify("\n", NEWLINE);
+        classify("0123456789", DIGIT);
+        classify("_ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz", ALPHA);
+        classify(".", DOT);
+        classify("-", MINUS);
+        classify("+*/=<>!", OPERATOR);
+        classify("(),{}:", DELIMITER);
+        CLASSES[0] = END;
+
+        String singles = "+-*/=><(),{}:";
+        TokenType[] types = new TokenType[] {TokenType.PLUS, TokenType.MINUS, TokenType.MULT, TokenType.DIV, TokenType.ASSIGN, TokenType.GT, TokenType.LT, TokenType.LP, TokenType.RP, TokenType.COMMA, TokenType.LCB, TokenType.RCB, TokenType.COLON};
+        for (int i = 0; i < singles.length(); i += 1) {
+            SINGLES[singles.charAt(i)] = types[i];
+        }
+
+        String[] keywords = new String[] {"PROGRAM", "while", "def", "if", "else", "elif", "for", "return", "lambda", "True", "False"};
+        TokenType[] names = new TokenType[] {TokenType.PROGRAM, TokenType.WHILE, TokenType.DEF, TokenType.IF, TokenType.ELSE, TokenType.ELIF, TokenType.FOR, TokenType.RETURN, TokenType.LAMBDA, TokenType.CONST_BOOLEAN, TokenType.CONST_BOOLEAN};
         for (int i = 0; i < keywords.length; i += 1) {
-            KEYWORDS.put(keywords[i], names[i]);
+            String keyword = keywords[i];
+            int slot = keywordSlot(keyword.charAt(0), keyword.charAt(keyword.length()-1), keyword.length());
+            if (KEYWORDS[slot] != null) {
+                throw new IllegalStateException("keyword hash collision: " + keyword + ", " + KEYWORDS[slot]);
+            }
+            KEYWORDS[slot] = keyword;
+            KEYWORD_TYPES[slot] = names[i];
         }
     }
 
-    private static void WhitespaceInit() {
-        WHITESPACE = new HashSet<>();
-        String set = " \t";
+    private static void classify(String set, byte cls) {
         for (int i = 0; i < set.length(); i += 1) {
-            WHITESPACE.add(set.charAt(i));
+            CLASSES[set.charAt(i)] = cls;
         }
     }
 
-    private static void NumberInit() {
-        NUMBER = new HashSet<>();
-        String set = "0123456789.-";
-        for (int i = 0; i < set.length(); i += 1) {
-            NUMBER.add(set.charAt(i));
-        }
+    /**
+     *  slot of a keyword candidate given its first and last character and its length
+     *  collision free over the keyword set (checked in init())
+     */
+    private static int keywordSlot(int first, int last, int len) {
+        return (first + 7 * last + len) & (KEYWORD_SLOTS - 1);
     }
 
-    private static void NameInit() {
-        NAME = new HashSet<>();
-        String set = "_ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
-        for (int i = 0; i < set.length(); i += 1) {
-            NAME.add(set.charAt(i));
-        }
+    private static byte classOf(byte b) {
+        return b >= 0 ? CLASSES[b] : INVALID;
     }
 
-    private static void OperatorInit() {
-        OPERATORS = new HashMap<>();
-        String[] operators = new String[] {"+", "-", "*", "/", "//", "=", ">", "<", ">=", "<=", "==", "!="};
-        String[] names = new String[] {"PLUS", "MINUS", "MULT", "DIV", "TRUEDIV", "ASSIGN", "GT", "LT", "GE", "LE", "EQ", "NE"};
-        for (int i = 0; i < operators.length; i += 1) {
-            OPERATORS.put(operators[i], names[i]);
+    /**
+     *  whether b may be part of a name
+     */
+    static boolean isNameByte(byte b) {
+        byte cls = classOf(b);
+        return cls == ALPHA || cls == DIGIT;
+    }
+
+    /**
+     *  name of the pragma held by comment whose text spans bytes [start, end), null when comment is no pragma
+     */
+    static String pragmaOf(Source source, int start, int end) {
+        while (start < end && (source.byteAt(start) & 0xFF) <= ' ') {
+            start += 1;
+        }
+        if (start < end && source.byteAt(start) == '@') {
+            return source.text(start+1, end).trim();
         }
+        return null;
     }
 
-    private static void DelimiterInit() {
-        DELIMITER = new HashMap<>();
-        String set = "(),{}:";
-        String[] names = new String[] {"LP", "RP", "COMMA", "LCB", "RCB", "COLON"};
-        for (int i = 0; i < set.length(); i += 1) {
-            DELIMITER.put(set.charAt(i), names[i]);
+    private byte at(int pos) {
+        int i = pos - windowStart;
+        if (i >= 0 && i < WINDOW) {
+            return window[i];
         }
+        fill(Math.max(0, pos - LOOKBACK));
+        return window[pos - windowStart];
     }
 
     /**
-     *  get current character
-     *  supporting infinite input abstraction
+     *  load window from position start on, zeros past the end of source
      */
-    private char getCurrentChar() throws SyntaxError {
-        if (cursor >= source.length()) {
-            throw new SyntaxError("Reaching end of file.");
-        }
-        return source.charAt(cursor);
+    private void fill(int start) {
+        windowStart = start;
+        int len = Math.max(0, Math.min(WINDOW, length - start));
+        source.read(start, window, 0, len);
+        Arrays.fill(window, len, WINDOW, (byte) 0);
+    }
+
+    private boolean atEnd(int pos) {
+        return pos >= length;
+    }
+
+    private int token(TokenType type, int start, int len) {
+        cursor = start + len;
+        return tokens.add(type, start, len, 0);
     }
 
     /**
-     *  get next character for forward looking without increment global cursor
+     *  sentinel token appended once input is exhausted
      */
-    private char peek() throws SyntaxError {
-        char c;
-        try {
-            c = source.charAt(cursor+1);
-        } catch (Exception e) {
-            throw new SyntaxError("Reaching end of file.");
-        }
-        return c;
+    private int eof() {
+        cursor = length;
+        eof = tokens.add(TokenType.EOF, length, 0, 0);
+        return eof;
     }
 
     /**
-     *  increment cursor by one position in the current line
+     *  append next token to the buffer and return its index, index of EOF token once input is exhausted
+     *  report error when invalid character caught
      */
-    private void advance() {
-        cursor += 1;
-        columnNo += 1;
+    public int scan() throws SyntaxError {
+        if (eof >= 0) {
+            return eof;
+        } else if (!skip()) {
+            return eof();
+        }
+        int start = cursor;
+        byte c = at(cursor);
+        switch (classOf(c)) {
+            case DELIMITER:
+                //  "(),{}:"
+                return token(SINGLES[c], start, 1);
+            case OPERATOR:
+                // "+", "*", "/", "//", "=", ">", "<", ">=", "<=", "==", "!="
+                return scanOperator(c, start);
+            case MINUS:
+                if (isNumeric(at(cursor+1))) {
+                    return scanNumber();
+                }
+                return token(TokenType.MINUS, start, 1);
+            case DIGIT:
+            case DOT:
+                return scanNumber();
+            case ALPHA:
+                return scanName();
+            default:
+                generatorErrorMsg(cursor);
+                throw new SyntaxError("Invalid character: " + source.text(cursor, cursor + sequenceLength(c)) + ".");
+        }
     }
 
     /**
-     *  increment cursor by one position through moving to next line
+     *  number of bytes of the UTF-8 sequence led by b
      */
-    private void jumpToNextLine() {
-        cursor += 1;
-        columnNo = 1;
-        lineNo += 1;
+    private static int sequenceLength(byte b) {
+        int lead = b & 0xFF;
+        return lead < 0xC0 ? 1 : lead < 0xE0 ? 2 : lead < 0xF0 ? 3 : 4;
+    }
+
+    private int scanOperator(byte c, int start) {
+        if (c == '+' || c == '*') {
+            return token(SINGLES[c], start, 1);
+        } else if (c == '!') {
+            return token(TokenType.NE, start, atEnd(cursor+1) ? 1 : 2);
+        }
+        // deciding between one and two characters needs the next one
+        if (atEnd(cursor+1)) {
+            return eof();
+        }
+        byte n = at(cursor+1);
+        TokenType type;
+        if (c == '/' && n == '/') {
+            type = TokenType.TRUEDIV;
+        } else if (c == '<' && n == '=') {
+            type = TokenType.LE;
+        } else if (c == '>' && n == '=') {
+            type = TokenType.GE;
+        } else if (c == '=' && n == '=') {
+            type = TokenType.EQ;
+        } else {
+            return token(SINGLES[c], start, 1);
+        }
+        return token(type, start, 2);
     }
 
     /**
-     *  check if next character exists in the given set passed as parameter
+     *  character allowed within numeric literal: digit, '.', '-'
      */
-    private boolean peek(Set<Character> set) {
-        try {
-            char n = peek();
-            if (set.contains(n)) {
-                return true;
-            } else {
-                return false;
-            }
-        } catch (Exception e) {
-            return false;
-        }
+    private static boolean isNumeric(byte c) {
+        byte cls = classOf(c);
+        return cls == DIGIT || cls == DOT || cls == MINUS;
     }
 
     /**
      *  consume a character sequence and parse it into corresponding number case
-     *  reporting error when number is invalid (e.g. 3.1.4)
+     *  int when it fits, double otherwise, reporting error when number is invalid (e.g. 3.1.4)
      */
-    private Token getNumericToken() throws SyntaxError {
-        StringBuffer sb = new StringBuffer();
-        int lno = lineNo;
-        int cno = columnNo;
-        while (NUMBER.contains(getCurrentChar())) {
-            sb.append(getCurrentChar());
-            advance();
+    private int scanNumber() throws SyntaxError {
+        int start = cursor;
+        while (isNumeric(at(cursor))) {
+            cursor += 1;
         }
-        String rawNumber = sb.toString();
-        try {
-            return new Token("CONST_INT", Integer.parseInt(rawNumber), lno, cno);
-        } catch (NumberFormatException e1) {
-            try {
-                return new Token("CONST_DOUBLE", Double.parseDouble(rawNumber), lno, cno);
-            } catch (NumberFormatException e2) {
-                generatorErrorMsg(lno, cno);
-                throw new SyntaxError("Invalid numeric: " + rawNumber + ".");
-            }
+        if (atEnd(cursor)) {
+            return eof();
+        }
+        int len = cursor - start;
+        long value = intValue(start, len);
+        if (value != NOT_INT) {
+            return tokens.add(TokenType.CONST_INT, start, len, (int) value);
+        } else if (isDouble(start, len)) {
+            return tokens.add(TokenType.CONST_DOUBLE, start, len, tokens.addDouble(Double.parseDouble(source.text(start, cursor))));
         }
+        generatorErrorMsg(start);
+        throw new SyntaxError("Invalid numeric: " + source.text(start, cursor) + ".");
     }
 
     /**
-     *  consume a character sequence until next character not existing in NAME set
-     *  return name in string format
+     *  value of optional '-' followed by digits within int range (what Integer.parseInt accepts), NOT_INT otherwise
      */
-    private String getName() throws SyntaxError {
-        StringBuffer sb = new StringBuffer();
-        while (NAME.contains(getCurrentChar())) {
-            sb.append(getCurrentChar());
-            advance();
+    private long intValue(int start, int len) {
+        int i = start;
+        int end = start + len;
+        boolean negative = at(i) == '-';
+        if (negative) {
+            i += 1;
         }
-        return sb.toString();
+        if (i == end) {
+            return NOT_INT;
+        }
+        long value = 0;
+        for (; i < end; i += 1) {
+            if (classOf(at(i)) != DIGIT) {
+                return NOT_INT;
+            }
+            value = value * 10 + (at(i) - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                return NOT_INT;
+            }
+        }
+        if (negative) {
+            return -value;
+        }
+        return value <= Integer.MAX_VALUE ? value : NOT_INT;
     }
 
     /**
-     *  return token each time method get called
-     *  report error when invalid character caught
+     *  optional '-' followed by digits with at most one '.' among them, what Double.parseDouble accepts out of NUMBER characters
      */
-    public Token getNextToken() throws SyntaxError {
-        gotoChar();
-        char c = getCurrentChar();
-        if (DELIMITER.containsKey(c)) {
-            //  "(),{}:"
-            Token token = new Token(DELIMITER.get(c), String.valueOf(c), lineNo, columnNo);
-            advance();
-            return token;
-        } else if (OPERATORS.containsKey(String.valueOf(c)) || c == '!') {
-            // "+", "-", "*", "/", "//", "=", ">", "<", ">=", "<=", "==", "!="
-            Token token;
-            if (c == '/') {
-                if (peek() == '/') {
-                    token = new Token(OPERATORS.get("//"), "//", lineNo, columnNo);
-                    advance();advance();
-                } else {
-                    token = new Token(OPERATORS.get("/"), "/", lineNo, columnNo);
-                    advance();
-                }
-            } else if (c == '<') {
-                if (peek() == '=') {
-                    token = new Token(OPERATORS.get("<="), "<=", lineNo, columnNo);
-                    advance();advance();
-                } else {
-                    token = new Token(OPERATORS.get("<"), "<", lineNo, columnNo);
-                    advance();
-                }
-            } else if (c == '>') {
-                if (peek() == '=') {
-                    token = new Token(OPERATORS.get(">="), ">=", lineNo, columnNo);
-                    advance();advance();
-                } else {
-                    token = new Token(OPERATORS.get(">"), ">", lineNo, columnNo);
-                    advance();
-                }
-            } else if (c == '=') {
-                if (peek() == '=') {
-                    token = new Token(OPERATORS.get("=="), "==", lineNo, columnNo);
-                    advance();advance();
-                } else {
-                    token = new Token(OPERATORS.get("="), "=", lineNo, columnNo);
-                    advance();
-                }
-            } else if (c == '!') {
-                token = new Token(OPERATORS.get("!="), "!=", lineNo, columnNo);
-                advance();
-                advance();
-            } else if (c != '-' || !peek(NUMBER)){
-                token = new Token(OPERATORS.get(String.valueOf(c)), String.valueOf(c), lineNo, columnNo);
-                advance();
-            } else {
-                return getNumericToken();
-            }
-            return token;
-        } else if (!NUMBER.contains(c) && NAME.contains(c)) {
-            int lno = lineNo;
-            int cno = columnNo;
-            String name = getName();
-            if (KEYWORDS.containsKey(name)) {
-                return new Token(KEYWORDS.get(name), name, lno, cno);
-            } else if (name.equals("True") || name.equals("False")) {
-                if (name.equals("True")) {
-                    return new Token("CONST_BOOLEAN", true, lno, cno);
-                } else {
-                    return new Token("CONST_BOOLEAN", false, lno, cno);
-                }
+    private boolean isDouble(int start, int len) {
+        int i = at(start) == '-' ? start + 1 : start;
+        int end = start + len;
+        int digits = 0;
+        int dots = 0;
+        for (; i < end; i += 1) {
+            byte cls = classOf(at(i));
+            if (cls == DIGIT) {
+                digits += 1;
+            } else if (cls == DOT && dots == 0) {
+                dots += 1;
             } else {
-                return new Token("ID", name, lno, cno);
+                return false;
             }
-        } else if (NUMBER.contains(c)) {
-            return getNumericToken();
-        } else {
-            generatorErrorMsg(lineNo, columnNo);
-            throw new SyntaxError("Invalid character: " + c + ".");
         }
+        return digits > 0;
     }
 
     /**
-     *  go to next meaningful character through removing whitespace, comment
+     *  consume a character sequence of letters, digits and '_'
+     *  keyword and boolean literal are recognized through the perfect hash table, other names get interned
      */
-    private void gotoChar() throws SyntaxError {
-        removeWhitespace();
-        while (getCurrentChar() == '\n' || getCurrentChar() == '/') {
-            if (getCurrentChar() == '\n') {
-                jumpToNextLine();
-                removeWhitespace();
-            } else {
-                if (peek() == '*') {
-                    removeComment();
-                    removeWhitespace();
-                } else {
-                    break;
-                }
+    private int scanName() {
+        int start = cursor;
+        int hash = 0;
+        byte cls = ALPHA;
+        while (cls == ALPHA || cls == DIGIT) {
+            hash = 31 * hash + at(cursor);
+            cursor += 1;
+            cls = classOf(at(cursor));
+        }
+        if (atEnd(cursor)) {
+            return eof();
+        }
+        int len = cursor - start;
+        int slot = keywordSlot(at(start), at(cursor-1), len);
+        String keyword = KEYWORDS[slot];
+        if (keyword != null && isKeyword(keyword, start, len)) {
+            TokenType type = KEYWORD_TYPES[slot];
+            return tokens.add(type, start, len, type == TokenType.CONST_BOOLEAN && at(start) == 'T' ? 1 : 0);
+        }
+        return tokens.add(TokenType.ID, start, len, tokens.intern(start, len, hash));
+    }
+
+    private boolean isKeyword(String keyword, int start, int len) {
+        if (keyword.length() != len) {
+            return false;
+        }
+        for (int i = 0; i < len; i += 1) {
+            if (at(start + i) != keyword.charAt(i)) {
+                return false;
             }
         }
+        return true;
     }
 
     /**
-     *  jump through comment within SLASH STAR     STAR  SLASH
+     *  go to next meaningful character through removing whitespace, newline, comment
+     *  return false when input ends first
      */
-    private void removeComment() throws SyntaxError {
-        advance();advance();
-        while (getCurrentChar() != '*' || peek() != '/') {
-            if (getCurrentChar() == '\n') {
-                jumpToNextLine();
-            } else {
-                advance();
+    private boolean skip() {
+        while (true) {
+            switch (classOf(at(cursor))) {
+                case BLANK:
+                case NEWLINE:
+                    cursor += 1;
+                    break;
+                case OPERATOR:
+                    if (at(cursor) != '/') {
+                        return true;
+                    } else if (atEnd(cursor+1)) {
+                        return false;
+                    } else if (at(cursor+1) != '*') {
+                        return true;
+                    } else if (!removeComment()) {
+                        return false;
+                    }
+                    break;
+                case END:
+                    return !atEnd(cursor);
+                default:
+                    return true;
             }
         }
-        advance();advance();
     }
 
     /**
-     *  remove white space
+     *  jump through comment within SLASH STAR     STAR  SLASH, return false when comment is not closed
+     *  comment starting with '@' is recorded as pragma
      */
-    private void removeWhitespace() throws SyntaxError {
-        while (WHITESPACE.contains(getCurrentChar())) {
-            advance();
+    private boolean removeComment() {
+        cursor += 2;
+        int start = cursor;
+        while (at(cursor) != '*' || at(cursor+1) != '/') {
+            if (atEnd(cursor)) {
+                return false;
+            }
+            cursor += 1;
+        }
+        int end = cursor;
+        cursor += 2;
+        String pragma = pragmaOf(source, start, end);
+        if (pragma != null) {
+            pragmas.put(source.lineOf(end), pragma);
         }
+        return true;
     }
 }
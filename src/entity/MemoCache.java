@@ -0,0 +1,134 @@
+package entity;
+
+import component.AST;
+import component.FunctionDelAST;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ *  size-bounded LRU cache of results of one pure function, keyed by argument list
+ *  jobs:
+ *     - answer calls whose arguments are all int/double/boolean without running the body
+ *     - evict least recently used entry once capacity is reached
+ *     - count hits, misses and evictions
+ */
+public class MemoCache {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     *  returned by lookup when result of the call is not cached (result itself may be null)
+     */
+    public static final Object MISSING = new Object();
+
+    private static int capacity = DEFAULT_CAPACITY;
+    // caches created for the program being run, in declaration order
+    private static List<MemoCache> caches = new ArrayList<>();
+
+    private final String name;
+    private final Map<List<Object>, Object> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public MemoCache(String name) {
+        this.name = name;
+        this.entries = new LinkedHashMap<List<Object>, Object>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, Object> eldest) {
+                if (size() > capacity) {
+                    evictions += 1;
+                    return true;
+                }
+                return false;
+            }
+        };
+        caches.add(this);
+    }
+
+    /**
+     *  capacity of caches of every function, takes effect for entries added afterwards
+     *  0 turns memoization off: PurityAnalysis creates no cache and calls run the body as usual
+     */
+    public static void setCapacity(int capacity) {
+        MemoCache.capacity = capacity;
+    }
+
+    public static boolean isEnabled() {
+        return capacity > 0;
+    }
+
+    public static List<MemoCache> getCaches() {
+        return caches;
+    }
+
+    /**
+     *  forget caches of the previous program
+     */
+    public static void clear() {
+        caches = new ArrayList<>();
+    }
+
+    /**
+     *  cache of the called function, null when it is not memoized (lambda, impure function)
+     */
+    public static MemoCache of(AST function) {
+        return function instanceof FunctionDelAST ? ((FunctionDelAST) function).getMemo() : null;
+    }
+
+    /**
+     *  only immutable scalar arguments make a usable key
+     */
+    public static boolean isCacheable(Object[] args) {
+        for (Object o : args) {
+            if (!(o instanceof Integer) && !(o instanceof Double) && !(o instanceof Boolean)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     *  cached result of the call, MISSING when not cached
+     */
+    public Object lookup(Object[] args) {
+        List<Object> key = Arrays.asList(args);
+        Object res = entries.get(key);
+        if (res == null && !entries.containsKey(key)) {
+            misses += 1;
+            return MISSING;
+        }
+        hits += 1;
+        return res;
+    }
+
+    public void store(Object[] args, Object result) {
+        entries.put(Arrays.asList(args.clone()), result);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public String toString() {
+        return name + ": hits " + hits + ", misses " + misses + ", evictions " + evictions + ", size " + entries.size();
+    }
+}
@@ -0,0 +1,50 @@
+package entity;
+
+/**
+ *  Destination of everything a running program writes: print output, error reports, statistics
+ *  implementations:
+ *    - BufferedSink: UTF-8 bytes collected in a buffer and handed to an OutputStream according to its flush policy
+ *    - CaptureSink: text kept in memory, for embedding the interpreter and inspecting what a program printed
+ *  a sink is used by one thread at a time and needs no synchronization
+ */
+public interface OutputSink {
+    void print(String s);
+
+    void print(char c);
+
+    void print(int value);
+
+    void print(double value);
+
+    void print(boolean value);
+
+    /**
+     *  end current line
+     */
+    void println();
+
+    /**
+     *  hand over pending output to its destination
+     */
+    void flush();
+
+    /**
+     *  value of the language (int, double, boolean, function, nothing) written the way Java prints it
+     */
+    default void print(Object value) {
+        if (value instanceof Integer) {
+            print((int) value);
+        } else if (value instanceof Double) {
+            print((double) value);
+        } else if (value instanceof Boolean) {
+            print((boolean) value);
+        } else {
+            print(String.valueOf(value));
+        }
+    }
+
+    default void println(String s) {
+        print(s);
+        println();
+    }
+}
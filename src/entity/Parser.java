@@ -1,12 +1,14 @@
 package entity;
 
 import component.*;
+import exception.NameError;
 import exception.SyntaxError;
+import exception.TypeError;
+import exception.ZeroDivisionError;
+import node.BinaryNode;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Deque;
 
 
 /**
@@ -17,56 +19,79 @@ import java.util.Deque;
  *     - report error message
  */
 public class Parser {
-    private Deque<Token> queue;
     private Lexer lexer;
+    private TokenBuffer tokens;
+    // index of next token to read, tokens before it have been consumed
+    private int pos;
     private AST root;
+    // bodies of functions and lambdas are only checked by the recognizer, parsed on first call through parseBody
+    private boolean lazy;
+    // parseBody at work: the body has been through the recognizer already
+    private boolean recognized;
 
     private static Parser parser = new Parser();
 
-    private Parser() {
-        queue = new LinkedList<>();
+    /**
+     *  receiver of a program parsed in streaming mode, called back on the parsing thread:
+     *  begin() once the program header (PROGRAM var) is read, statement() for each top level statement as soon as it is complete
+     *  errors raised by the receiver stop parsing and reach the caller of parseStreaming
+     */
+    public interface StatementHandler {
+        void begin(ProgramAST programNode) throws SyntaxError, ZeroDivisionError, NameError, TypeError;
+
+        void statement(AST stmt) throws SyntaxError, ZeroDivisionError, NameError, TypeError;
     }
 
+    /**
+     *  parsers other than the singleton parse chunks for the parallel front end
+     */
+    Parser() {}
+
     public static Parser getParser() { return parser; }
 
     /**
-     *  Deque used to implement forward peeking
-     *  abstraction layer occurs
+     *  index of next token in the TokenBuffer, lexer only scans a token when parsing first gets there
+     *  running into EOF token in the middle of the program is an error
      */
-    private Token getNextToken() throws SyntaxError {
-        if (queue.isEmpty()) {
-            return lexer.getNextToken();
-        } else {
-            return queue.removeFirst();
+    private int getNextToken() throws SyntaxError {
+        int token = nextToken();
+        if (tokens.type(token) == TokenType.EOF) {
+            throw new SyntaxError("Reaching end of file.");
         }
+        return token;
     }
 
     /**
-     *  reserved invariant: put checked token used for decision making back into Deque
+     *  index of next token, EOF token included
      */
-    private void rollback(Token token) {
-        queue.addFirst(token);
+    private int nextToken() throws SyntaxError {
+        int token = pos < tokens.size() ? pos : lexer.scan();
+        pos = token + 1;
+        return token;
+    }
+
+    /**
+     *  reserved invariant: put checked token used for decision making back, tokens are put back in reverse order of reading
+     */
+    private void rollback(int token) {
+        pos = token;
     }
 
     /**
      *  Assertion for token-level checking
      */
-    private void Assert(Token token, String type) throws SyntaxError {
-        if (!token.getName().equals(type)) {
-            lexer.generatorErrorMsg(token.getLineNo(), token.getColumnNo());
-            throw new SyntaxError(type + " required but got <" + token.getName() + ", " + token.getValue() + ">.");
+    private void Assert(int token, TokenType type) throws SyntaxError {
+        if (tokens.type(token) != type) {
+            lexer.generatorErrorMsg(tokens.start(token));
+            throw new SyntaxError(type + " required but got <" + tokens.type(token) + ", " + tokens.value(token) + ">.");
         }
     }
 
     /**
      *  helper method for checking token type
      */
-    private boolean checkType(Token token, String type) {
-        if (token.getName().equals(type)) {
-            return true;
-        } else {
-            return false;
-        }
+    private boolean checkType(int token, TokenType type) {
+        return tokens.type(token) == type;
     }
 
     /**
@@ -75,23 +100,128 @@ public class Parser {
      */
     public void parse(Lexer lexer) throws SyntaxError {
         this.lexer = lexer;
+        tokens = lexer.getTokens();
+        pos = 0;
         root = parseProgram();
         endCheck();
     }
 
+    /**
+     *  client method, streaming mode
+     *  each top level statement is handed to handler right after it is parsed, before the tokens following it are scanned,
+     *  so that statements run while the rest of the file is still unread; top level statements are not kept in the tree
+     *  syntax error further down is reported with its position once parsing gets there
+     */
+    public void parseStreaming(Lexer lexer, StatementHandler handler) throws SyntaxError, ZeroDivisionError, NameError, TypeError {
+        this.lexer = lexer;
+        tokens = lexer.getTokens();
+        pos = 0;
+        int token = getNextToken();
+        Assert(token, TokenType.PROGRAM);
+
+        ProgramAST programNode = new ProgramAST();
+        programNode.setPosition(tokens.start(token));
+        programNode.setVarNode(parseVar());
+        BlockAST blockNode = new BlockAST();
+        blockNode.setStmtnode(new ArrayList<>());
+        programNode.setBlockNode(blockNode);
+        root = programNode;
+        handler.begin(programNode);
+
+        token = getNextToken();
+        Assert(token, TokenType.LCB);
+        token = getNextToken();
+        while (!checkType(token, TokenType.RCB)) {
+            rollback(token);
+            handler.statement(parseStatement());
+
+            token = getNextToken();
+        }
+        endCheck();
+    }
+
     /**
      *  do end checking
      *  error happened when there is any token left
      */
     private void endCheck() throws SyntaxError {
+        int token = pos < tokens.size() ? pos : lexer.scan();
+        if (tokens.type(token) != TokenType.EOF) {
+            throw new SyntaxError("Invalid content following '}' at the end of block.");
+        }
+    }
+
+    /**
+     *  parallel front end: parse chunk of the program scanned by lexer, return its top level statements
+     *  chunk other than the first starts with a statement, the one holding program header (first) also holds '{',
+     *  the one holding program's '}' (last) is checked for content following it
+     */
+    List<AST> parseChunk(Lexer lexer, boolean first, boolean last, boolean lazy) throws SyntaxError {
+        this.lexer = lexer;
+        this.lazy = lazy;
+        tokens = lexer.getTokens();
+        pos = 0;
+        int token;
+        if (first) {
+            token = getNextToken();
+            Assert(token, TokenType.PROGRAM);
+
+            ProgramAST programNode = new ProgramAST();
+            programNode.setPosition(tokens.start(token));
+            programNode.setVarNode(parseVar());
+            root = programNode;
+            token = getNextToken();
+            Assert(token, TokenType.LCB);
+        }
+        List<AST> stmts = new ArrayList<>();
+        token = last ? getNextToken() : nextToken();
+        while (!checkType(token, TokenType.RCB) && !checkType(token, TokenType.EOF)) {
+            rollback(token);
+            stmts.add(parseStatement());
+
+            token = last ? getNextToken() : nextToken();
+        }
+        if (last) {
+            endCheck();
+        } else if (!checkType(token, TokenType.EOF)) {
+            throw new SyntaxError("Program block closed before the end of chunk.");
+        }
+        return stmts;
+    }
+
+    /**
+     *  client method, lazy mode
+     *  build the real body out of the tokens LazyBlockAST stands for, function and lambda bodies nested in it stay lazy
+     *  reading position is left where it was
+     */
+    public AST parseBody(LazyBlockAST lazyBlockNode) throws SyntaxError {
+        int resume = pos;
+        boolean outer = recognized;
+        pos = lazyBlockNode.getStart();
+        recognized = true;
         try {
-            getNextToken();
-        } catch (Exception ignored) {
-            return;
+            return parseBlock();
+        } finally {
+            pos = resume;
+            recognized = outer;
+        }
+    }
+
+    /**
+     *  drop the tokens of the program parsed last (along with the ones Lexer keeps) once the tree is built,
+     *  unless bodies left unparsed in lazy mode still point into them
+     */
+    void release() {
+        if (!lazy) {
+            tokens = null;
+            lexer.release();
         }
-        throw new SyntaxError("Invalid content following '}' at the end of block.");
     }
 
+    public boolean isLazy() { return lazy; }
+
+    public void setLazy(boolean lazy) { this.lazy = lazy; }
+
     /**
      *  return root of constructed AST
      */
@@ -103,11 +233,11 @@ public class Parser {
      *   program -> PROGRAM var block
      */
     private AST parseProgram() throws SyntaxError {
-        Token token = getNextToken();
-        Assert(token, "PROGRAM");
+        int token = getNextToken();
+        Assert(token, TokenType.PROGRAM);
 
         ProgramAST programNode = new ProgramAST();
-        programNode.setToken(token);
+        programNode.setPosition(tokens.start(token));
         programNode.setVarNode(parseVar());
 
         programNode.setBlockNode(parseBlock());
@@ -118,12 +248,12 @@ public class Parser {
      *   var -> ID
      */
     private AST parseVar() throws SyntaxError {
-        Token token = getNextToken();
-        Assert(token, "ID");
+        int token = getNextToken();
+        Assert(token, TokenType.ID);
 
         VarAST varNode = new VarAST();
-        varNode.setName((String) token.getValue());
-        varNode.setToken(token);
+        varNode.setName(tokens.name(token));
+        varNode.setPosition(tokens.start(token));
         return varNode;
     }
 
@@ -131,17 +261,42 @@ public class Parser {
      *   block -> LCB statement_list RCB
      */
     private AST parseBlock() throws SyntaxError {
-        Token token = getNextToken();
-        Assert(token, "LCB");
+        int token = getNextToken();
+        Assert(token, TokenType.LCB);
 
         BlockAST blockNode = new BlockAST();
         List<AST> stmts = parseStatementList();
         token = getNextToken();
-        Assert(token, "RCB");
+        Assert(token, TokenType.RCB);
         blockNode.setStmtnode(stmts);
         return blockNode;
     }
 
+    /**
+     *  pre-parse function/lambda body in lazy mode, recording token range of the block
+     *  the body is run through the same grammar as parseBlock without building nodes, so that any syntax error in it
+     *  is reported up front exactly as in eager mode; bodies inside a body being parsed for its first call
+     *  went through the recognizer along with it and are only brace-matched
+     */
+    private AST preparseBlock() throws SyntaxError {
+        int start = pos;
+        if (recognized) {
+            int token = getNextToken();
+            int depth = 1;
+            while (depth > 0) {
+                token = getNextToken();
+                if (checkType(token, TokenType.LCB)) {
+                    depth += 1;
+                } else if (checkType(token, TokenType.RCB)) {
+                    depth -= 1;
+                }
+            }
+        } else {
+            skipBlock();
+        }
+        return new LazyBlockAST(this, start, pos);
+    }
+
     /**
      *   statement_list -> statement
      *                   | statement statement_list
@@ -149,8 +304,8 @@ public class Parser {
     private List<AST> parseStatementList() throws SyntaxError {
         List<AST> stmts = new ArrayList<>();
 
-        Token token = getNextToken();
-        while (!checkType(token, "RCB")) {
+        int token = getNextToken();
+        while (!checkType(token, TokenType.RCB)) {
             rollback(token);
             stmts.add(parseStatement());
 
@@ -169,32 +324,32 @@ public class Parser {
      *              | return_statement
      */
     private AST parseStatement() throws SyntaxError {
-        Token token = getNextToken();
-        if (checkType(token, "DEF") || checkType(token, "IF") || checkType(token, "WHILE") || checkType(token, "RETURN")) {
+        int token = getNextToken();
+        if (checkType(token, TokenType.DEF) || checkType(token, TokenType.IF) || checkType(token, TokenType.WHILE) || checkType(token, TokenType.RETURN)) {
             rollback(token);
-            if (checkType(token, "DEF")) {
+            if (checkType(token, TokenType.DEF)) {
                 return parseFunctionDec();
-            } else if (checkType(token, "IF")) {
+            } else if (checkType(token, TokenType.IF)) {
                 return parseIfStmt();
-            } else if (checkType(token, "WHILE")) {
+            } else if (checkType(token, TokenType.WHILE)) {
                 return parseWhileStmt();
             } else {
                 return parseReturnStmt();
             }
         }
-        Assert(token, "ID");
-        Token next = getNextToken();
-        if (checkType(next, "ASSIGN") || checkType(next, "LP")) {
+        Assert(token, TokenType.ID);
+        int next = getNextToken();
+        if (checkType(next, TokenType.ASSIGN) || checkType(next, TokenType.LP)) {
             rollback(next);
             rollback(token);
-            if (checkType(next, "ASSIGN")) {
+            if (checkType(next, TokenType.ASSIGN)) {
                 return parseAssignStmt();
             } else {
                 return parseFunctionCall();
             }
         } else {
-            lexer.generatorErrorMsg(next.getLineNo(), next.getColumnNo());
-            throw new SyntaxError("Invalid token got: <" + next.getName() + ", " + next.getValue() + ">.");
+            lexer.generatorErrorMsg(tokens.start(next));
+            throw new SyntaxError("Invalid token got: <" + tokens.type(next) + ", " + tokens.value(next) + ">.");
         }
     }
 
@@ -205,13 +360,13 @@ public class Parser {
         AssignAST assignNode = new AssignAST();
 
         assignNode.setVarNode(parseVar());
-        Token token = getNextToken();
-        Assert(token, "ASSIGN");
+        int token = getNextToken();
+        Assert(token, TokenType.ASSIGN);
 
-        Token next = getNextToken();
-        if (checkType(next, "LAMBDA")) {
+        int next = getNextToken();
+        if (checkType(next, TokenType.LAMBDA)) {
             rollback(next);
-            assignNode.setExprNode(parseLambdaExpr(((VarAST)assignNode.getVarNode()).getToken()));
+            assignNode.setExprNode(parseLambdaExpr((VarAST) assignNode.getVarNode()));
         } else {
             rollback(next);
             assignNode.setExprNode(parseExprComplement());
@@ -223,29 +378,30 @@ public class Parser {
      *   function_declaration -> DEF var LP (var (COMMA var)* RP | RP) block
      */
     private AST parseFunctionDec() throws SyntaxError {
-        Token token = getNextToken();
-        Assert(token, "DEF");
+        int token = getNextToken();
+        Assert(token, TokenType.DEF);
 
         FunctionDelAST functionDelNode = new FunctionDelAST();
+        functionDelNode.setMemoizable(!lexer.hasPragma("nomemo", tokens.start(token)));
         functionDelNode.setVarNode(parseVar());
 
         token = getNextToken();
-        Assert(token, "LP");
+        Assert(token, TokenType.LP);
 
         List<AST> params = new ArrayList<>();
         token = getNextToken();
-        if (!checkType(token, "RP")) {
+        if (!checkType(token, TokenType.RP)) {
             rollback(token);
             params.add(parseVar());
             token = getNextToken();
-            while (!checkType(token, "RP")) {
-                Assert(token, "COMMA");
+            while (!checkType(token, TokenType.RP)) {
+                Assert(token, TokenType.COMMA);
                 params.add(parseVar());
                 token = getNextToken();
             }
         }
         functionDelNode.setParamNode(params);
-        functionDelNode.setBlockNode(parseBlock());
+        functionDelNode.setBlockNode(lazy ? preparseBlock() : parseBlock());
         return functionDelNode;
     }
 
@@ -257,17 +413,17 @@ public class Parser {
         FunctionCallAST functionCallNode = new FunctionCallAST();
         functionCallNode.setVarNode(parseVar());
 
-        Token token = getNextToken();
-        Assert(token, "LP");
+        int token = getNextToken();
+        Assert(token, TokenType.LP);
 
         List<AST> exprs = new ArrayList<>();
         token = getNextToken();
-        if (!checkType(token, "RP")) {
+        if (!checkType(token, TokenType.RP)) {
             rollback(token);
             exprs.add(parseExprComplement());
             token = getNextToken();
-            while (!checkType(token, "RP")) {
-                Assert(token, "COMMA");
+            while (!checkType(token, TokenType.RP)) {
+                Assert(token, TokenType.COMMA);
                 exprs.add(parseExprComplement());
                 token = getNextToken();
             }
@@ -280,20 +436,20 @@ public class Parser {
      *   if_statement -> IF LP expr_complement RP block ELSE block
      */
     private AST parseIfStmt() throws SyntaxError {
-        Token token = getNextToken();
-        Assert(token, "IF");
+        int token = getNextToken();
+        Assert(token, TokenType.IF);
         IfStmtAST ifStmtNode = new IfStmtAST();
 
         token = getNextToken();
-        Assert(token, "LP");
+        Assert(token, TokenType.LP);
         ifStmtNode.setPredicate(parseExprComplement());
         token = getNextToken();
-        Assert(token, "RP");
+        Assert(token, TokenType.RP);
 
 
         ifStmtNode.setIf_body(parseBlock());
         token = getNextToken();
-        Assert(token, "ELSE");
+        Assert(token, TokenType.ELSE);
         ifStmtNode.setElse_body(parseBlock());
 
         return ifStmtNode;
@@ -303,15 +459,15 @@ public class Parser {
      *   while_statement -> WHILE LP expr_complement RP block
      */
     private AST parseWhileStmt() throws SyntaxError {
-        Token token = getNextToken();
-        Assert(token, "WHILE");
+        int token = getNextToken();
+        Assert(token, TokenType.WHILE);
         WhileStmtAST whileStmtNode = new WhileStmtAST();
 
         token = getNextToken();
-        Assert(token, "LP");
+        Assert(token, TokenType.LP);
         whileStmtNode.setPredicate(parseExprComplement());
         token = getNextToken();
-        Assert(token, "RP");
+        Assert(token, TokenType.RP);
 
         whileStmtNode.setBody(parseBlock());
         return whileStmtNode;
@@ -324,10 +480,11 @@ public class Parser {
      */
     private AST parseExprComplement() throws SyntaxError {
         AST leftOperand = parseExpr();
-        Token token = getNextToken();
-        if (checkType(token, "GT") || checkType(token, "LT") || checkType(token, "GE") || checkType(token, "LE") || checkType(token, "EQ") || checkType(token, "NE")) {
+        int token = getNextToken();
+        if (checkType(token, TokenType.GT) || checkType(token, TokenType.LT) || checkType(token, TokenType.GE) || checkType(token, TokenType.LE) || checkType(token, TokenType.EQ) || checkType(token, TokenType.NE)) {
             DoubleOpAST operator = new DoubleOpAST();
-            operator.setOperator(token);
+            operator.setPosition(tokens.start(token));
+            operator.setOperatorCode(BinaryNode.operatorCode(tokens.type(token)));
             operator.setLeftOperand(leftOperand);
             operator.setRightOperand(parseExpr());
             leftOperand = operator;
@@ -342,10 +499,11 @@ public class Parser {
      */
     private AST parseExpr() throws SyntaxError {
         AST leftOperand = parseTerm();
-        Token token = getNextToken();
-        while (checkType(token, "PLUS") || checkType(token, "MINUS")) {
+        int token = getNextToken();
+        while (checkType(token, TokenType.PLUS) || checkType(token, TokenType.MINUS)) {
             DoubleOpAST operator = new DoubleOpAST();
-            operator.setOperator(token);
+            operator.setPosition(tokens.start(token));
+            operator.setOperatorCode(BinaryNode.operatorCode(tokens.type(token)));
             operator.setLeftOperand(leftOperand);
             operator.setRightOperand(parseTerm());
             leftOperand = operator;
@@ -360,10 +518,11 @@ public class Parser {
      */
     private AST parseTerm() throws SyntaxError {
         AST leftOperand = parseFactor();
-        Token token = getNextToken();
-        while (checkType(token, "MULT") || checkType(token, "DIV") || checkType(token, "TRUEDIV")) {
+        int token = getNextToken();
+        while (checkType(token, TokenType.MULT) || checkType(token, TokenType.DIV) || checkType(token, TokenType.TRUEDIV)) {
             DoubleOpAST operator = new DoubleOpAST();
-            operator.setOperator(token);
+            operator.setPosition(tokens.start(token));
+            operator.setOperatorCode(BinaryNode.operatorCode(tokens.type(token)));
             operator.setLeftOperand(leftOperand);
             AST f = parseFactor();
             operator.setRightOperand(f);
@@ -385,10 +544,10 @@ public class Parser {
      *           | function_call
      */
     private AST parseFactor() throws SyntaxError {
-        Token token = getNextToken();
-        if (checkType(token, "ID")) {
-            Token next = getNextToken();
-            if (checkType(next, "LP")) {
+        int token = getNextToken();
+        if (checkType(token, TokenType.ID)) {
+            int next = getNextToken();
+            if (checkType(next, TokenType.LP)) {
                 rollback(next);
                 rollback(token);
                 return parseFunctionCall();
@@ -397,25 +556,26 @@ public class Parser {
                 rollback(token);
                 return parseVar();
             }
-        } else if (checkType(token, "CONST_INT")) {
-            return new NumericIntAST((Integer) token.getValue());
-        } else if (checkType(token, "CONST_DOUBLE")) {
-            return new NumericDoubleAST((Double) token.getValue());
-        } else if (checkType(token, "CONST_BOOLEAN")) {
-            return new BooleanType((Boolean) token.getValue());
-        } else if (checkType(token, "LP")) {
+        } else if (checkType(token, TokenType.CONST_INT)) {
+            return new NumericIntAST(tokens.intValue(token));
+        } else if (checkType(token, TokenType.CONST_DOUBLE)) {
+            return new NumericDoubleAST(tokens.doubleValue(token));
+        } else if (checkType(token, TokenType.CONST_BOOLEAN)) {
+            return new BooleanType(tokens.booleanValue(token));
+        } else if (checkType(token, TokenType.LP)) {
             AST operand = parseExprComplement();
             token = getNextToken();
-            Assert(token, "RP");
+            Assert(token, TokenType.RP);
             return operand;
-        } else if (checkType(token, "PLUS") || checkType(token, "MINUS")) {
+        } else if (checkType(token, TokenType.PLUS) || checkType(token, TokenType.MINUS)) {
             SingleOpAST operator = new SingleOpAST();
-            operator.setOperator(token);
+            operator.setPosition(tokens.start(token));
+            operator.setOperatorCode(BinaryNode.operatorCode(tokens.type(token)));
             operator.setOperand(parseFactor());
             return operator;
         } else {
-            lexer.generatorErrorMsg(token.getLineNo(), token.getColumnNo());
-            throw new SyntaxError("Unexpected token got: <" + token.getName() + ", " + token.getValue() + ">.");
+            lexer.generatorErrorMsg(tokens.start(token));
+            throw new SyntaxError("Unexpected token got: <" + tokens.type(token) + ", " + tokens.value(token) + ">.");
         }
     }
 
@@ -423,8 +583,8 @@ public class Parser {
      *   return_statement -> RETURN expr
      */
     private AST parseReturnStmt() throws SyntaxError {
-        Token token = getNextToken();
-        Assert(token, "RETURN");
+        int token = getNextToken();
+        Assert(token, TokenType.RETURN);
         ReturnAST returnNode = new ReturnAST();
         returnNode.setExpr(parseExprComplement());
         return returnNode;
@@ -433,24 +593,24 @@ public class Parser {
     /**
      *   lambda_expr -> LAMBDA LP (var (COMMA var)* RP | RP) COLON body
      */
-    private AST parseLambdaExpr(Token t) throws SyntaxError {
-        Token token = getNextToken();
-        Assert(token, "LAMBDA");
+    private AST parseLambdaExpr(VarAST var) throws SyntaxError {
+        int token = getNextToken();
+        Assert(token, TokenType.LAMBDA);
         LambdaExprAST lambdaExprNode = new LambdaExprAST();
-        lambdaExprNode.setName((String) t.getValue());
-        lambdaExprNode.setToken(t);
+        lambdaExprNode.setName(var.getName());
+        lambdaExprNode.setPosition(var.getPosition());
 
         token = getNextToken();
-        Assert(token, "LP");
+        Assert(token, TokenType.LP);
 
         List<AST> params = new ArrayList<>();
         token = getNextToken();
-        if (!checkType(token, "RP")) {
+        if (!checkType(token, TokenType.RP)) {
             rollback(token);
             params.add(parseVar());
             token = getNextToken();
-            while (!checkType(token, "RP")) {
-                Assert(token, "COMMA");
+            while (!checkType(token, TokenType.RP)) {
+                Assert(token, TokenType.COMMA);
                 params.add(parseVar());
                 token = getNextToken();
             }
@@ -458,9 +618,166 @@ public class Parser {
         lambdaExprNode.setParams(params);
 
         token = getNextToken();
-        Assert(token, "COLON");
-        lambdaExprNode.setBody(parseBlock());
+        Assert(token, TokenType.COLON);
+        lambdaExprNode.setBody(lazy ? preparseBlock() : parseBlock());
         return lambdaExprNode;
     }
 
+    /*
+     *  recognizer of lazy mode: each skipX follows parseX token by token and reports the same errors, building no node
+     */
+
+    private void skipVar() throws SyntaxError {
+        Assert(getNextToken(), TokenType.ID);
+    }
+
+    private void skipBlock() throws SyntaxError {
+        Assert(getNextToken(), TokenType.LCB);
+        int token = getNextToken();
+        while (!checkType(token, TokenType.RCB)) {
+            rollback(token);
+            skipStatement();
+            token = getNextToken();
+        }
+    }
+
+    private void skipStatement() throws SyntaxError {
+        int token = getNextToken();
+        if (checkType(token, TokenType.DEF)) {
+            skipFunctionDec();
+            return;
+        } else if (checkType(token, TokenType.IF) || checkType(token, TokenType.WHILE)) {
+            Assert(getNextToken(), TokenType.LP);
+            skipExprComplement();
+            Assert(getNextToken(), TokenType.RP);
+            skipBlock();
+            if (checkType(token, TokenType.IF)) {
+                Assert(getNextToken(), TokenType.ELSE);
+                skipBlock();
+            }
+            return;
+        } else if (checkType(token, TokenType.RETURN)) {
+            skipExprComplement();
+            return;
+        }
+        Assert(token, TokenType.ID);
+        int next = getNextToken();
+        if (checkType(next, TokenType.ASSIGN)) {
+            int value = getNextToken();
+            rollback(value);
+            if (checkType(value, TokenType.LAMBDA)) {
+                skipLambdaExpr();
+            } else {
+                skipExprComplement();
+            }
+        } else if (checkType(next, TokenType.LP)) {
+            skipArguments();
+        } else {
+            lexer.generatorErrorMsg(tokens.start(next));
+            throw new SyntaxError("Invalid token got: <" + tokens.type(next) + ", " + tokens.value(next) + ">.");
+        }
+    }
+
+    /**
+     *  DEF already read
+     */
+    private void skipFunctionDec() throws SyntaxError {
+        skipVar();
+        Assert(getNextToken(), TokenType.LP);
+        skipParams();
+        skipBlock();
+    }
+
+    /**
+     *  LP already read
+     */
+    private void skipParams() throws SyntaxError {
+        int token = getNextToken();
+        if (!checkType(token, TokenType.RP)) {
+            rollback(token);
+            skipVar();
+            token = getNextToken();
+            while (!checkType(token, TokenType.RP)) {
+                Assert(token, TokenType.COMMA);
+                skipVar();
+                token = getNextToken();
+            }
+        }
+    }
+
+    /**
+     *  LP already read
+     */
+    private void skipArguments() throws SyntaxError {
+        int token = getNextToken();
+        if (!checkType(token, TokenType.RP)) {
+            rollback(token);
+            skipExprComplement();
+            token = getNextToken();
+            while (!checkType(token, TokenType.RP)) {
+                Assert(token, TokenType.COMMA);
+                skipExprComplement();
+                token = getNextToken();
+            }
+        }
+    }
+
+    private void skipExprComplement() throws SyntaxError {
+        skipExpr();
+        int token = getNextToken();
+        if (checkType(token, TokenType.GT) || checkType(token, TokenType.LT) || checkType(token, TokenType.GE) || checkType(token, TokenType.LE) || checkType(token, TokenType.EQ) || checkType(token, TokenType.NE)) {
+            skipExpr();
+            token = getNextToken();
+        }
+        rollback(token);
+    }
+
+    private void skipExpr() throws SyntaxError {
+        skipTerm();
+        int token = getNextToken();
+        while (checkType(token, TokenType.PLUS) || checkType(token, TokenType.MINUS)) {
+            skipTerm();
+            token = getNextToken();
+        }
+        rollback(token);
+    }
+
+    private void skipTerm() throws SyntaxError {
+        skipFactor();
+        int token = getNextToken();
+        while (checkType(token, TokenType.MULT) || checkType(token, TokenType.DIV) || checkType(token, TokenType.TRUEDIV)) {
+            skipFactor();
+            token = getNextToken();
+        }
+        rollback(token);
+    }
+
+    private void skipFactor() throws SyntaxError {
+        int token = getNextToken();
+        while (checkType(token, TokenType.PLUS) || checkType(token, TokenType.MINUS)) {
+            token = getNextToken();
+        }
+        if (checkType(token, TokenType.ID)) {
+            int next = getNextToken();
+            if (checkType(next, TokenType.LP)) {
+                skipArguments();
+            } else {
+                rollback(next);
+            }
+        } else if (checkType(token, TokenType.LP)) {
+            skipExprComplement();
+            Assert(getNextToken(), TokenType.RP);
+        } else if (!checkType(token, TokenType.CONST_INT) && !checkType(token, TokenType.CONST_DOUBLE) && !checkType(token, TokenType.CONST_BOOLEAN)) {
+            lexer.generatorErrorMsg(tokens.start(token));
+            throw new SyntaxError("Unexpected token got: <" + tokens.type(token) + ", " + tokens.value(token) + ">.");
+        }
+    }
+
+    private void skipLambdaExpr() throws SyntaxError {
+        Assert(getNextToken(), TokenType.LAMBDA);
+        Assert(getNextToken(), TokenType.LP);
+        skipParams();
+        Assert(getNextToken(), TokenType.COLON);
+        skipBlock();
+    }
 }
@@ -0,0 +1,240 @@
+package entity;
+
+import component.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ *  [Singleton]
+ *  semantic pass running between Parser and Interpreter
+ *  jobs:
+ *     - build Scope (frame layout) for program body, each function body and lambda body
+ *     - assign each VarAST a (depth, slot) address so that variable access needs no name lookup at runtime
+ *     - build Function (arity, parameter slots) of each function declaration and lambda expression
+ *     - link call sites of built-in functions to the registered Builtin
+ *     - resolve one top level statement at a time in streaming mode
+ */
+public class Resolver {
+    private static Resolver resolver = new Resolver();
+
+    // names of built-in functions bound again by the program at top level
+    private Set<String> rebound;
+    // global scope of a program resolved statement by statement, null when resolving whole program
+    private Scope streaming;
+
+    private Resolver() {}
+
+    public static Resolver getResolver() { return resolver; }
+
+    /**
+     *  client method
+     *  global scope holds built-in functions first, then program name and top level names
+     */
+    public void resolve(AST root) {
+        ProgramAST programNode = (ProgramAST) root;
+        Scope global = declareGlobal(programNode);
+        streaming = null;
+        declareBlock(global, programNode.getBlockNode());
+        resolveBlock(global, programNode.getBlockNode());
+    }
+
+    /**
+     *  client method, streaming mode
+     *  build global scope out of program header, top level statements are resolved one by one through resolveStatement
+     *  global scope keeps growing as statements come, names read before any statement binds them get their global slot
+     *  on first sight, so that function body may call a function declared further down
+     *  call sites are never linked to built-in functions, since a later statement may still bind the name again
+     */
+    public Scope begin(ProgramAST programNode) {
+        streaming = declareGlobal(programNode);
+        return streaming;
+    }
+
+    /**
+     *  client method, streaming mode
+     *  resolve top level statement of the program passed to begin()
+     */
+    public void resolveStatement(AST stmt) {
+        List<AST> single = new ArrayList<>();
+        single.add(stmt);
+        BlockAST blockNode = new BlockAST();
+        blockNode.setStmtnode(single);
+        declareBlock(streaming, blockNode);
+        resolveNode(streaming, stmt);
+    }
+
+    /**
+     *  client method, lazy mode
+     *  resolve body of function declaration/lambda expression parsed on first call in the scope enclosing the declaration
+     */
+    public void resolveBody(AST function, Scope enclosing) {
+        if (function instanceof FunctionDelAST) {
+            FunctionDelAST functionDelNode = (FunctionDelAST) function;
+            functionDelNode.setScope(resolveFunction(enclosing, functionDelNode.getParamNode(), functionDelNode.getBlockNode()));
+            functionDelNode.getFunction().attachBody();
+        } else {
+            LambdaExprAST lambdaExprNode = (LambdaExprAST) function;
+            lambdaExprNode.setScope(resolveFunction(enclosing, lambdaExprNode.getParams(), lambdaExprNode.getBody()));
+            lambdaExprNode.getFunction().attachBody();
+        }
+    }
+
+    /**
+     *  global scope holding built-in functions and program name
+     */
+    private Scope declareGlobal(ProgramAST programNode) {
+        Scope global = new Scope(null);
+        for (String function : BuiltinFunctions.names()) {
+            global.declare(function);
+        }
+        rebound = new HashSet<>();
+        bind(global, (VarAST) programNode.getVarNode());
+        programNode.setScope(global);
+        return global;
+    }
+
+    /**
+     *  bind name in the given scope, address of the binding node is always in the current frame
+     */
+    private void bind(Scope scope, VarAST var) {
+        if (scope.getParent() == null && BuiltinFunctions.get(var.getName()) != null) {
+            rebound.add(var.getName());
+        }
+        var.setDepth(0);
+        var.setSlot(scope.declare(var.getName()));
+    }
+
+    /**
+     *  first pass over a body: allocate slot for every name bound in it
+     *  nested blocks of if/while share the frame, nested function bodies do not
+     */
+    private void declareBlock(Scope scope, AST node) {
+        for (AST stmt : ((BlockAST) node).getStmtnode()) {
+            if (stmt instanceof AssignAST) {
+                bind(scope, (VarAST) ((AssignAST) stmt).getVarNode());
+            } else if (stmt instanceof FunctionDelAST) {
+                bind(scope, (VarAST) ((FunctionDelAST) stmt).getVarNode());
+            } else if (stmt instanceof IfStmtAST) {
+                declareBlock(scope, ((IfStmtAST) stmt).getIf_body());
+                declareBlock(scope, ((IfStmtAST) stmt).getElse_body());
+            } else if (stmt instanceof WhileStmtAST) {
+                declareBlock(scope, ((WhileStmtAST) stmt).getBody());
+            } else if (stmt instanceof BlockAST) {
+                declareBlock(scope, stmt);
+            }
+        }
+    }
+
+    /**
+     *  build scope of function/lambda body: formal parameters take the first slots
+     */
+    private Scope resolveFunction(Scope parent, List<AST> params, AST body) {
+        if (body instanceof LazyBlockAST) {
+            // resolved through resolveBody once parsed
+            ((LazyBlockAST) body).setEnclosing(parent);
+            return null;
+        }
+        Scope scope = new Scope(parent);
+        for (AST param : params) {
+            bind(scope, (VarAST) param);
+        }
+        declareBlock(scope, body);
+        resolveBlock(scope, body);
+        return scope;
+    }
+
+    /**
+     *  second pass over a body: resolve every name read
+     */
+    private void resolveBlock(Scope scope, AST node) {
+        for (AST stmt : ((BlockAST) node).getStmtnode()) {
+            resolveNode(scope, stmt);
+        }
+    }
+
+    private void resolveNode(Scope scope, AST node) {
+        if (node instanceof AssignAST) {
+            resolveNode(scope, ((AssignAST) node).getExprNode());
+        } else if (node instanceof FunctionDelAST) {
+            FunctionDelAST functionDelNode = (FunctionDelAST) node;
+            functionDelNode.setScope(resolveFunction(scope, functionDelNode.getParamNode(), functionDelNode.getBlockNode()));
+            functionDelNode.setFunction(new Function(functionDelNode));
+        } else if (node instanceof LambdaExprAST) {
+            LambdaExprAST lambdaExprNode = (LambdaExprAST) node;
+            lambdaExprNode.setScope(resolveFunction(scope, lambdaExprNode.getParams(), lambdaExprNode.getBody()));
+            lambdaExprNode.setFunction(new Function(lambdaExprNode));
+        } else if (node instanceof FunctionCallAST) {
+            FunctionCallAST functionCallNode = (FunctionCallAST) node;
+            resolveVar(scope, (VarAST) functionCallNode.getVarNode());
+            linkBuiltin(scope, functionCallNode);
+            for (AST expr : functionCallNode.getExprNode()) {
+                resolveNode(scope, expr);
+            }
+        } else if (node instanceof IfStmtAST) {
+            IfStmtAST ifStmtNode = (IfStmtAST) node;
+            resolveNode(scope, ifStmtNode.getPredicate());
+            resolveBlock(scope, ifStmtNode.getIf_body());
+            resolveBlock(scope, ifStmtNode.getElse_body());
+        } else if (node instanceof WhileStmtAST) {
+            WhileStmtAST whileStmtNode = (WhileStmtAST) node;
+            resolveNode(scope, whileStmtNode.getPredicate());
+            resolveBlock(scope, whileStmtNode.getBody());
+        } else if (node instanceof ReturnAST) {
+            resolveNode(scope, ((ReturnAST) node).getExpr());
+        } else if (node instanceof BlockAST) {
+            resolveBlock(scope, node);
+        } else if (node instanceof DoubleOpAST) {
+            resolveNode(scope, ((DoubleOpAST) node).getLeftOperand());
+            resolveNode(scope, ((DoubleOpAST) node).getRightOperand());
+        } else if (node instanceof SingleOpAST) {
+            resolveNode(scope, ((SingleOpAST) node).getOperand());
+        } else if (node instanceof VarAST) {
+            resolveVar(scope, (VarAST) node);
+        }
+    }
+
+    /**
+     *  link call site to built-in function when its callee resolves to the global slot of a built-in function never bound again
+     */
+    private void linkBuiltin(Scope scope, FunctionCallAST functionCallNode) {
+        VarAST var = (VarAST) functionCallNode.getVarNode();
+        if (streaming != null || var.getDepth() < 0 || rebound.contains(var.getName())) {
+            return;
+        }
+        Scope s = scope;
+        for (int i = 0; i < var.getDepth(); i += 1) {
+            s = s.getParent();
+        }
+        if (s.getParent() == null) {
+            functionCallNode.setBuiltin(BuiltinFunctions.get(var.getName()));
+        }
+    }
+
+    /**
+     *  address of a name read: innermost enclosing scope binding the name
+     *  left unresolved (depth -1) when no scope binds it, NameError is reported once it gets evaluated
+     *  in streaming mode it gets a global slot instead, which stays unset unless a later statement binds the name
+     */
+    private void resolveVar(Scope scope, VarAST var) {
+        int depth = 0;
+        for (Scope s = scope; s != null; s = s.getParent()) {
+            int slot = s.slotOf(var.getName());
+            if (slot >= 0) {
+                var.setDepth(depth);
+                var.setSlot(slot);
+                return;
+            }
+            depth += 1;
+        }
+        if (streaming != null) {
+            var.setDepth(depth - 1);
+            var.setSlot(streaming.declare(var.getName()));
+            return;
+        }
+        var.setDepth(-1);
+        var.setSlot(-1);
+    }
+}
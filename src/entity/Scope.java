@@ -0,0 +1,62 @@
+package entity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ *  Compile-time layout of a frame: program body, function body or lambda body.
+ *  Each name bound in the body (formal parameter, assignment target, function declaration) owns one slot,
+ *  runtime Frame of the body is an Object[] of size() slots.
+ */
+public class Scope {
+    private Scope parent;
+    private int level;
+    private Map<String, Integer> slots;
+    private List<String> names;
+
+    public Scope(Scope parent) {
+        this.parent = parent;
+        this.level = parent == null ? 0 : parent.level + 1;
+        slots = new HashMap<>();
+        names = new ArrayList<>();
+    }
+
+    /**
+     *  allocate slot for name if not allocated yet, return slot index
+     */
+    public int declare(String name) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            slot = names.size();
+            slots.put(name, slot);
+            names.add(name);
+        }
+        return slot;
+    }
+
+    /**
+     *  slot index of name in this scope, -1 when name is not bound here
+     */
+    public int slotOf(String name) {
+        Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    public String nameOf(int slot) {
+        return names.get(slot);
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    public Scope getParent() {
+        return parent;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+}
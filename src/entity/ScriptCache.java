@@ -0,0 +1,561 @@
+package entity;
+
+import component.*;
+import opt.PassManager;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ *  [Singleton]
+ *  on-disk cache of programs gone through the front end (parsed, every pass applied), for scripts run over and over
+ *  jobs:
+ *     - key entry by SHA-256 of the source bytes, the cache format version, the pass pipeline and whether memoization is on
+ *     - write the tree into a compact binary entry: name table, then nodes in preorder with varint fields,
+ *       positions as differences from the one written before
+ *     - map entry into memory on later runs and rebuild the tree out of it
+ *     - detect stale or corrupt entry (magic, version, key, lengths, CRC32 of the payload, undecodable node)
+ *       and leave it to be rebuilt and overwritten
+ *  entry layout: "AMYC" | version | key (32 bytes) | source length | payload length | payload CRC32 | payload
+ *  scopes, slots and Function objects are not stored, Resolver rebuilds them from the tree in a single pass
+ *  errors of the cache itself (unwritable directory, full disk) only cost the saving, the program runs all the same
+ */
+public class ScriptCache {
+    /**
+     *  bumped whenever the entry layout or the meaning of a stored node changes
+     */
+    public static final int VERSION = 2;
+
+    private static final byte[] MAGIC = {'A', 'M', 'Y', 'C'};
+    private static final int HEADER = MAGIC.length + 4 + 32 + 4 + 4 + 4;
+    private static final String SUFFIX = ".amc";
+
+    // node tags
+    private static final byte NULL = 0;
+    private static final byte PROGRAM = 1;
+    private static final byte BLOCK = 2;
+    private static final byte ASSIGN = 3;
+    private static final byte FUNCTION_DEL = 4;
+    private static final byte LAMBDA = 5;
+    private static final byte CALL = 6;
+    private static final byte IF = 7;
+    private static final byte WHILE = 8;
+    private static final byte RETURN = 9;
+    private static final byte DOUBLE_OP = 10;
+    private static final byte SINGLE_OP = 11;
+    private static final byte VAR = 12;
+    private static final byte INT = 13;
+    private static final byte DOUBLE = 14;
+    private static final byte BOOLEAN = 15;
+
+    private static ScriptCache cache = new ScriptCache();
+    private static PassManager passManager = PassManager.getManager();
+
+    // null when the cache is off
+    private Path directory;
+    // key of the source looked up last, so that a miss followed by store hashes the source once
+    private Source keyed;
+    private byte[] key;
+
+    private ScriptCache() {}
+
+    public static ScriptCache getCache() { return cache; }
+
+    /**
+     *  directory keeping the entries, created on first store; null turns the cache off
+     */
+    public void setDirectory(Path directory) {
+        this.directory = directory;
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     *  client method
+     *  tree stored for source, null when there is no usable entry
+     */
+    public AST load(Source source) {
+        byte[] key = keyOf(source);
+        Path path = pathOf(key);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER || size >= Integer.MAX_VALUE) {
+                return null;
+            }
+            ByteBuffer entry = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            ByteBuffer payload = check(entry, key, source.length());
+            return payload == null ? null : new Decoder(payload).program();
+        } catch (IOException | RuntimeException e) {
+            // unreadable or undecodable entry: corrupt, rebuilt by the caller
+            return null;
+        }
+    }
+
+    /**
+     *  client method
+     *  save tree built out of source, replacing the entry atomically so that concurrent runs never see half of it
+     */
+    public void store(Source source, AST root) {
+        byte[] key = keyOf(source);
+        try {
+            byte[] payload = new Encoder().program(root);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            ByteBuffer entry = ByteBuffer.allocate(HEADER + payload.length);
+            entry.put(MAGIC).putInt(VERSION).put(key).putInt(source.length()).putInt(payload.length).putInt((int) crc.getValue());
+            entry.put(payload);
+            entry.flip();
+
+            Files.createDirectories(directory);
+            Path tmp = Files.createTempFile(directory, "entry", ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                    while (entry.hasRemaining()) {
+                        channel.write(entry);
+                    }
+                }
+                try {
+                    Files.move(tmp, pathOf(key), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, pathOf(key), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            // no entry this time
+        }
+    }
+
+    /**
+     *  payload of entry when its header matches key and source length and its checksum holds, null otherwise
+     */
+    private static ByteBuffer check(ByteBuffer entry, byte[] key, int sourceLength) {
+        byte[] magic = new byte[MAGIC.length];
+        entry.get(magic);
+        if (!Arrays.equals(magic, MAGIC) || entry.getInt() != VERSION) {
+            return null;
+        }
+        byte[] stored = new byte[key.length];
+        entry.get(stored);
+        if (!Arrays.equals(stored, key) || entry.getInt() != sourceLength) {
+            return null;
+        }
+        int length = entry.getInt();
+        int checksum = entry.getInt();
+        if (length != entry.remaining()) {
+            return null;
+        }
+        ByteBuffer payload = entry.slice();
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        return (int) crc.getValue() == checksum ? payload : null;
+    }
+
+    /**
+     *  SHA-256 of the source bytes followed by format version, pass pipeline and whether memoization is on
+     */
+    private byte[] keyOf(Source source) {
+        if (source == keyed) {
+            return key;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            source.digest(digest);
+            digest.update((VERSION + ";" + passManager.describe() + ";" + MemoCache.isEnabled()).getBytes(StandardCharsets.UTF_8));
+            keyed = source;
+            key = digest.digest();
+            return key;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Path pathOf(byte[] key) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : key) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return directory.resolve(sb.append(SUFFIX).toString());
+    }
+
+    /**
+     *  tree -> payload: name table (count, then length and UTF-8 bytes of each name), then nodes in preorder
+     *  each node is its tag followed by its fields, counts as unsigned varints, int constants zigzag encoded
+     *  position is the zigzag encoded difference from the position written before it, mostly 1 or 2 bytes long
+     */
+    private static class Encoder {
+        private final Bytes tree = new Bytes();
+        private final Map<String, Integer> names = new HashMap<>();
+        private final List<String> table = new ArrayList<>();
+        // cache of memoized function -> its index among the caches of the program, caches get created in that order on load
+        private final Map<MemoCache, Integer> memos = new IdentityHashMap<>();
+        // position written last
+        private int last;
+
+        byte[] program(AST root) {
+            List<MemoCache> caches = MemoCache.getCaches();
+            for (int i = 0; i < caches.size(); i += 1) {
+                memos.put(caches.get(i), i);
+            }
+            node(root);
+            Bytes payload = new Bytes();
+            payload.varint(table.size());
+            for (String name : table) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                payload.varint(bytes.length);
+                payload.put(bytes, bytes.length);
+            }
+            payload.put(tree.buf, tree.size);
+            return Arrays.copyOf(payload.buf, payload.size);
+        }
+
+        private void name(String name) {
+            Integer id = names.get(name);
+            if (id == null) {
+                id = table.size();
+                names.put(name, id);
+                table.add(name);
+            }
+            tree.varint(id);
+        }
+
+        private void position(int position) {
+            int delta = position - last;
+            last = position;
+            tree.varint((delta << 1) ^ (delta >> 31));
+        }
+
+        private void nodes(List<AST> list) {
+            tree.varint(list.size());
+            for (AST node : list) {
+                node(node);
+            }
+        }
+
+        private void node(AST node) {
+            if (node == null) {
+                tree.put(NULL);
+            } else if (node instanceof ProgramAST) {
+                ProgramAST programNode = (ProgramAST) node;
+                tree.put(PROGRAM);
+                position(programNode.getPosition());
+                node(programNode.getVarNode());
+                node(programNode.getBlockNode());
+            } else if (node instanceof BlockAST) {
+                tree.put(BLOCK);
+                nodes(((BlockAST) node).getStmtnode());
+            } else if (node instanceof AssignAST) {
+                tree.put(ASSIGN);
+                node(((AssignAST) node).getVarNode());
+                node(((AssignAST) node).getExprNode());
+            } else if (node instanceof FunctionDelAST) {
+                FunctionDelAST functionDelNode = (FunctionDelAST) node;
+                tree.put(FUNCTION_DEL);
+                tree.put((byte) (functionDelNode.isMemoizable() ? 1 : 0));
+                tree.varint(functionDelNode.getMemo() == null ? 0 : memos.get(functionDelNode.getMemo()) + 1);
+                node(functionDelNode.getVarNode());
+                nodes(functionDelNode.getParamNode());
+                node(functionDelNode.getBlockNode());
+            } else if (node instanceof LambdaExprAST) {
+                LambdaExprAST lambdaExprNode = (LambdaExprAST) node;
+                tree.put(LAMBDA);
+                name(lambdaExprNode.getName());
+                position(lambdaExprNode.getPosition());
+                nodes(lambdaExprNode.getParams());
+                node(lambdaExprNode.getBody());
+            } else if (node instanceof FunctionCallAST) {
+                FunctionCallAST functionCallNode = (FunctionCallAST) node;
+                tree.put(CALL);
+                tree.put((byte) (functionCallNode.isTailCall() ? 1 : 0));
+                node(functionCallNode.getVarNode());
+                nodes(functionCallNode.getExprNode());
+            } else if (node instanceof IfStmtAST) {
+                IfStmtAST ifStmtNode = (IfStmtAST) node;
+                tree.put(IF);
+                node(ifStmtNode.getPredicate());
+                node(ifStmtNode.getIf_body());
+                node(ifStmtNode.getElse_body());
+            } else if (node instanceof WhileStmtAST) {
+                tree.put(WHILE);
+                node(((WhileStmtAST) node).getPredicate());
+                node(((WhileStmtAST) node).getBody());
+            } else if (node instanceof ReturnAST) {
+                tree.put(RETURN);
+                node(((ReturnAST) node).getExpr());
+            } else if (node instanceof DoubleOpAST) {
+                DoubleOpAST doubleOpNode = (DoubleOpAST) node;
+                tree.put(DOUBLE_OP);
+                position(doubleOpNode.getPosition());
+                tree.varint(doubleOpNode.getOperatorCode());
+                node(doubleOpNode.getLeftOperand());
+                node(doubleOpNode.getRightOperand());
+            } else if (node instanceof SingleOpAST) {
+                SingleOpAST singleOpNode = (SingleOpAST) node;
+                tree.put(SINGLE_OP);
+                position(singleOpNode.getPosition());
+                tree.varint(singleOpNode.getOperatorCode());
+                node(singleOpNode.getOperand());
+            } else if (node instanceof VarAST) {
+                tree.put(VAR);
+                name(((VarAST) node).getName());
+                position(((VarAST) node).getPosition());
+            } else if (node instanceof NumericIntAST) {
+                int val = ((NumericIntAST) node).getVal();
+                tree.put(INT);
+                tree.varint((val << 1) ^ (val >> 31));
+            } else if (node instanceof NumericDoubleAST) {
+                tree.put(DOUBLE);
+                tree.putLong(Double.doubleToRawLongBits(((NumericDoubleAST) node).getVal()));
+            } else if (node instanceof BooleanType) {
+                tree.put(BOOLEAN);
+                tree.put((byte) (((BooleanType) node).getVal() ? 1 : 0));
+            } else {
+                throw new IllegalArgumentException("node not cacheable: " + node.getClass().getSimpleName());
+            }
+        }
+    }
+
+    /**
+     *  payload -> tree, reading straight from the mapped entry
+     *  any inconsistency (unknown tag, name out of table, truncated payload) throws, entry counts as corrupt
+     */
+    private static class Decoder {
+        private final ByteBuffer in;
+        private String[] table;
+        private FunctionDelAST[] memoized = new FunctionDelAST[0];
+        // position read last
+        private int last;
+
+        Decoder(ByteBuffer in) {
+            this.in = in;
+        }
+
+        AST program() {
+            table = new String[varint()];
+            for (int i = 0; i < table.length; i += 1) {
+                byte[] bytes = new byte[varint()];
+                in.get(bytes);
+                table[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            AST root = node();
+            if (!(root instanceof ProgramAST) || in.hasRemaining()) {
+                throw new IllegalStateException("malformed entry");
+            }
+            // caches of the memoized functions, created in the order PurityAnalysis created them
+            MemoCache.clear();
+            for (FunctionDelAST functionDelNode : memoized) {
+                if (functionDelNode == null) {
+                    continue;
+                }
+                functionDelNode.setMemo(new MemoCache(((VarAST) functionDelNode.getVarNode()).getName()));
+            }
+            return root;
+        }
+
+        private int varint() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = in.get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalStateException("malformed varint");
+        }
+
+        private String name() {
+            return table[varint()];
+        }
+
+        private int position() {
+            int zigzag = varint();
+            last += (zigzag >>> 1) ^ -(zigzag & 1);
+            return last;
+        }
+
+        private List<AST> nodes() {
+            int count = varint();
+            if (count > in.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            List<AST> list = new ArrayList<>(count);
+            for (int i = 0; i < count; i += 1) {
+                list.add(node());
+            }
+            return list;
+        }
+
+        private AST node() {
+            byte tag = in.get();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case PROGRAM: {
+                    ProgramAST programNode = new ProgramAST();
+                    programNode.setPosition(position());
+                    programNode.setVarNode(node());
+                    programNode.setBlockNode(node());
+                    return programNode;
+                }
+                case BLOCK: {
+                    BlockAST blockNode = new BlockAST();
+                    blockNode.setStmtnode(nodes());
+                    return blockNode;
+                }
+                case ASSIGN: {
+                    AssignAST assignNode = new AssignAST();
+                    assignNode.setVarNode(node());
+                    assignNode.setExprNode(node());
+                    return assignNode;
+                }
+                case FUNCTION_DEL: {
+                    FunctionDelAST functionDelNode = new FunctionDelAST();
+                    functionDelNode.setMemoizable(in.get() != 0);
+                    int memo = varint();
+                    functionDelNode.setVarNode(node());
+                    functionDelNode.setParamNode(nodes());
+                    functionDelNode.setBlockNode(node());
+                    if (memo > 0) {
+                        if (memo > memoized.length) {
+                            memoized = Arrays.copyOf(memoized, Math.max(memo, memoized.length * 2));
+                        }
+                        memoized[memo-1] = functionDelNode;
+                    }
+                    return functionDelNode;
+                }
+                case LAMBDA: {
+                    LambdaExprAST lambdaExprNode = new LambdaExprAST();
+                    lambdaExprNode.setName(name());
+                    lambdaExprNode.setPosition(position());
+                    lambdaExprNode.setParams(nodes());
+                    lambdaExprNode.setBody(node());
+                    return lambdaExprNode;
+                }
+                case CALL: {
+                    FunctionCallAST functionCallNode = new FunctionCallAST();
+                    functionCallNode.setTailCall(in.get() != 0);
+                    functionCallNode.setVarNode(node());
+                    functionCallNode.setExprNode(nodes());
+                    return functionCallNode;
+                }
+                case IF: {
+                    IfStmtAST ifStmtNode = new IfStmtAST();
+                    ifStmtNode.setPredicate(node());
+                    ifStmtNode.setIf_body(node());
+                    ifStmtNode.setElse_body(node());
+                    return ifStmtNode;
+                }
+                case WHILE: {
+                    WhileStmtAST whileStmtNode = new WhileStmtAST();
+                    whileStmtNode.setPredicate(node());
+                    whileStmtNode.setBody(node());
+                    return whileStmtNode;
+                }
+                case RETURN: {
+                    ReturnAST returnNode = new ReturnAST();
+                    returnNode.setExpr(node());
+                    return returnNode;
+                }
+                case DOUBLE_OP: {
+                    DoubleOpAST doubleOpNode = new DoubleOpAST();
+                    doubleOpNode.setPosition(position());
+                    doubleOpNode.setOperatorCode(varint());
+                    doubleOpNode.setLeftOperand(node());
+                    doubleOpNode.setRightOperand(node());
+                    return doubleOpNode;
+                }
+                case SINGLE_OP: {
+                    SingleOpAST singleOpNode = new SingleOpAST();
+                    singleOpNode.setPosition(position());
+                    singleOpNode.setOperatorCode(varint());
+                    singleOpNode.setOperand(node());
+                    return singleOpNode;
+                }
+                case VAR: {
+                    VarAST varNode = new VarAST();
+                    varNode.setName(name());
+                    varNode.setPosition(position());
+                    return varNode;
+                }
+                case INT: {
+                    int zigzag = varint();
+                    return new NumericIntAST((zigzag >>> 1) ^ -(zigzag & 1));
+                }
+                case DOUBLE:
+                    return new NumericDoubleAST(Double.longBitsToDouble(in.getLong()));
+                case BOOLEAN:
+                    return new BooleanType(in.get() != 0);
+                default:
+                    throw new IllegalStateException("unknown tag " + tag);
+            }
+        }
+    }
+
+    /**
+     *  growable byte array the Encoder writes into
+     */
+    private static class Bytes {
+        private byte[] buf = new byte[1 << 12];
+        private int size;
+
+        void put(byte b) {
+            reserve(1);
+            buf[size++] = b;
+        }
+
+        void put(byte[] bytes, int length) {
+            reserve(length);
+            System.arraycopy(bytes, 0, buf, size, length);
+            size += length;
+        }
+
+        void putLong(long v) {
+            reserve(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buf[size++] = (byte) (v >>> shift);
+            }
+        }
+
+        /**
+         *  7 bits per byte, low bits first, high bit set on every byte but the last
+         */
+        void varint(int v) {
+            reserve(5);
+            while ((v & ~0x7F) != 0) {
+                buf[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[size++] = (byte) v;
+        }
+
+        private void reserve(int n) {
+            if (size + n > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + n));
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package entity;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ *  Program text as UTF-8 bytes, either memory-mapped from the script file or encoded from a string
+ *  jobs:
+ *    - give byte access, one at a time (0 past the end) or copied in bulk into the window Lexer scans
+ *    - decode ranges (names, literals, lines of error messages) explicitly as UTF-8
+ *    - map position (byte offset) to line No. and column No. through a line-offset index built on first use
+ *  a position is an int, so a source is limited to 2 GB
+ */
+public final class Source {
+    private final ByteBuffer bytes;
+    private final int length;
+    // offset of the first byte of each line, null until a position is first turned into line No.
+    private int[] lineStarts;
+    private int lineCount;
+
+    private Source(ByteBuffer bytes) {
+        this.bytes = bytes;
+        this.length = bytes.limit();
+    }
+
+    /**
+     *  map the whole file read-only, pages are loaded by the OS as Lexer gets to them
+     */
+    public static Source map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= Integer.MAX_VALUE) {
+                throw new IOException(path + " is too large (" + size + " bytes), source is limited to 2 GB.");
+            }
+            return new Source(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    public static Source of(String text) {
+        return new Source(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     *  number of bytes
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     *  byte at position pos, 0 when pos is past the end
+     */
+    public byte byteAt(int pos) {
+        return pos < length ? bytes.get(pos) : 0;
+    }
+
+    /**
+     *  copy bytes [pos, pos+len) into dst from index off
+     */
+    public void read(int pos, byte[] dst, int off, int len) {
+        bytes.get(pos, dst, off, len);
+    }
+
+    /**
+     *  feed every byte into digest (content hash keying the script cache)
+     */
+    public void digest(MessageDigest digest) {
+        digest.update(bytes.duplicate());
+    }
+
+    /**
+     *  UTF-8 text of bytes [start, end)
+     */
+    public String text(int start, int end) {
+        byte[] dst = new byte[end - start];
+        bytes.get(start, dst);
+        return new String(dst, StandardCharsets.UTF_8);
+    }
+
+    private void indexLines() {
+        lineStarts = new int[16];
+        lineCount = 1;
+        for (int i = 0; i < length; i += 1) {
+            if (bytes.get(i) == '\n') {
+                if (lineCount == lineStarts.length) {
+                    lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+                }
+                lineStarts[lineCount++] = i + 1;
+            }
+        }
+    }
+
+    /**
+     *  line No. (from 1) of position
+     */
+    public int lineOf(int pos) {
+        if (lineStarts == null) {
+            indexLines();
+        }
+        int lo = 0;
+        int hi = lineCount - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (lineStarts[mid] <= pos) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo + 1;
+    }
+
+    /**
+     *  column No. (from 1) of position, counted in characters as Java strings count them
+     */
+    public int columnOf(int pos) {
+        int column = 1;
+        for (int i = lineStarts[lineOf(pos)-1]; i < pos; i += 1) {
+            int b = bytes.get(i) & 0xFF;
+            if ((b & 0xC0) != 0x80) {
+                // lead byte of a 4-byte sequence stands for a surrogate pair
+                column += b >= 0xF0 ? 2 : 1;
+            }
+        }
+        return column;
+    }
+
+    /**
+     *  text of line lno without its line break
+     */
+    public String line(int lno) {
+        if (lineStarts == null) {
+            indexLines();
+        }
+        int start = lineStarts[lno-1];
+        int end = lno < lineCount ? lineStarts[lno] - 1 : length;
+        return text(start, end);
+    }
+}
@@ -0,0 +1,33 @@
+package entity;
+
+/**
+ *  Call in tail position handed back by the call site instead of being invoked on top of the caller.
+ *  The invocation loop (trampoline) of the enclosing function picks it up and runs it in place of the caller,
+ *  so chains of tail calls, also between different functions, take constant Java stack.
+ */
+public class TailCall {
+    private Closure closure;
+    private Object[] args;
+    private int site;
+
+    /**
+     *  site is the position of the call, where an error of parameter number mismatch of declared function gets reported
+     */
+    public TailCall(Closure closure, Object[] args, int site) {
+        this.closure = closure;
+        this.args = args;
+        this.site = site;
+    }
+
+    public Closure getClosure() {
+        return closure;
+    }
+
+    public Object[] getArgs() {
+        return args;
+    }
+
+    public int getSite() {
+        return site;
+    }
+}
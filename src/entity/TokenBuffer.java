@@ -0,0 +1,198 @@
+package entity;
+
+import java.util.Arrays;
+
+/**
+ *  Token stream filled by Lexer, kept as parallel primitive arrays instead of one object per token
+ *  i-th token is described by:
+ *     kind   - ordinal of its TokenType
+ *     start  - offset of its first byte in the source, also the position AST nodes keep for error reporting
+ *     length - number of bytes
+ *     value  - ID: id of the interned name, CONST_INT: the int itself, CONST_DOUBLE: index into the double table,
+ *              CONST_BOOLEAN: 1/0, unused for other kinds
+ *  13 bytes per token, names are interned straight from the source bytes so that a name seen before costs nothing
+ */
+public final class TokenBuffer {
+    private static final TokenType[] TYPES = TokenType.values();
+    private static final int INITIAL_CAPACITY = 1 << 12;
+
+    private final Source source;
+
+    private byte[] kinds;
+    private int[] starts;
+    private int[] lengths;
+    private int[] values;
+    private int size;
+
+    // interned names, open addressing table of (name id + 1) keyed by hash of the characters
+    private String[] names = new String[64];
+    private int[] nameHashes = new int[64];
+    private int[] nameStarts = new int[64];
+    private int[] nameLengths = new int[64];
+    private int[] nameTable = new int[128];
+    private int nameCount;
+
+    private double[] doubles = new double[16];
+    private int doubleCount;
+
+    public TokenBuffer(Source source) {
+        this(source, source.length());
+    }
+
+    /**
+     *  buffer for tokens of a range of the given number of bytes
+     *  arrays start small and double as tokens come, so memory follows what has been scanned rather than the source size
+     */
+    public TokenBuffer(Source source, int bytes) {
+        this.source = source;
+        // roughly one token every five bytes
+        int capacity = Math.max(16, Math.min(INITIAL_CAPACITY, bytes / 5));
+        kinds = new byte[capacity];
+        starts = new int[capacity];
+        lengths = new int[capacity];
+        values = new int[capacity];
+    }
+
+    /**
+     *  append token, return its index
+     */
+    public int add(TokenType type, int start, int length, int value) {
+        if (size == kinds.length) {
+            int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        kinds[size] = (byte) type.ordinal();
+        starts[size] = start;
+        lengths[size] = length;
+        values[size] = value;
+        return size++;
+    }
+
+    /**
+     *  id of the (ASCII) name spelled by bytes [start, start+length) of the source whose String.hashCode() is hash
+     *  names are compared against the bytes of their first occurrence, String is only created when asked for
+     */
+    public int intern(int start, int length, int hash) {
+        int mask = nameTable.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = nameTable[slot] - 1;
+            if (id < 0) {
+                return newName(slot, hash, start, length);
+            } else if (nameHashes[id] == hash && nameLengths[id] == length && sameBytes(nameStarts[id], start, length)) {
+                return id;
+            }
+        }
+    }
+
+    private boolean sameBytes(int a, int b, int length) {
+        for (int i = 0; i < length; i += 1) {
+            if (source.byteAt(a + i) != source.byteAt(b + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int newName(int slot, int hash, int start, int length) {
+        if (nameCount == nameHashes.length) {
+            int capacity = nameCount * 2;
+            names = Arrays.copyOf(names, capacity);
+            nameHashes = Arrays.copyOf(nameHashes, capacity);
+            nameStarts = Arrays.copyOf(nameStarts, capacity);
+            nameLengths = Arrays.copyOf(nameLengths, capacity);
+        }
+        int id = nameCount++;
+        nameHashes[id] = hash;
+        nameStarts[id] = start;
+        nameLengths[id] = length;
+        nameTable[slot] = id + 1;
+        if (nameCount * 2 > nameTable.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    private void rehash() {
+        nameTable = new int[nameTable.length * 2];
+        int mask = nameTable.length - 1;
+        for (int id = 0; id < nameCount; id += 1) {
+            int slot = nameHashes[id] & mask;
+            while (nameTable[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            nameTable[slot] = id + 1;
+        }
+    }
+
+    /**
+     *  index of double literal in the double table
+     */
+    public int addDouble(double value) {
+        if (doubleCount == doubles.length) {
+            doubles = Arrays.copyOf(doubles, doubleCount * 2);
+        }
+        doubles[doubleCount] = value;
+        return doubleCount++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public TokenType type(int i) {
+        return TYPES[kinds[i]];
+    }
+
+    /**
+     *  position of token: offset of its first byte in the source
+     */
+    public int start(int i) {
+        return starts[i];
+    }
+
+    public int length(int i) {
+        return lengths[i];
+    }
+
+    /**
+     *  interned name of ID token
+     */
+    public String name(int i) {
+        int id = values[i];
+        if (names[id] == null) {
+            names[id] = source.text(nameStarts[id], nameStarts[id] + nameLengths[id]);
+        }
+        return names[id];
+    }
+
+    public int intValue(int i) {
+        return values[i];
+    }
+
+    public double doubleValue(int i) {
+        return doubles[values[i]];
+    }
+
+    public boolean booleanValue(int i) {
+        return values[i] != 0;
+    }
+
+    public String text(int i) {
+        return source.text(starts[i], starts[i] + lengths[i]);
+    }
+
+    /**
+     *  Integer/Double/Boolean for literals, text of the token otherwise, used in error messages
+     */
+    public Object value(int i) {
+        switch (type(i)) {
+            case CONST_INT: return intValue(i);
+            case CONST_DOUBLE: return doubleValue(i);
+            case CONST_BOOLEAN: return booleanValue(i);
+            default: return text(i);
+        }
+    }
+}
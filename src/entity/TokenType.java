@@ -0,0 +1,18 @@
+package entity;
+
+/**
+ *  Kinds of token supplied by Lexer, compared by identity in Parser instead of by name
+ *  name of each constant is what gets printed in error messages
+ */
+public enum TokenType {
+    // keywords
+    PROGRAM, WHILE, DEF, IF, ELSE, ELIF, FOR, RETURN, LAMBDA,
+    // operators
+    PLUS, MINUS, MULT, DIV, TRUEDIV, ASSIGN, GT, LT, GE, LE, EQ, NE,
+    // delimiters
+    LP, RP, COMMA, LCB, RCB, COLON,
+    // literals and names
+    CONST_INT, CONST_DOUBLE, CONST_BOOLEAN, ID,
+    // sentinel after the last token
+    EOF
+}
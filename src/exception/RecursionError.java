@@ -0,0 +1,14 @@
+package exception;
+
+
+/**
+ *  self-define RecursionError class
+ *  raised when depth of nested function calls exceeds the configured recursion limit
+ */
+public class RecursionError extends Exception {
+    public RecursionError() {}
+
+    public RecursionError(String info) {
+        super(info);
+    }
+}
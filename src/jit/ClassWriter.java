@@ -0,0 +1,148 @@
+package jit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ *  Self-contained writer of JVM class files, just enough for the classes generated by FunctionCompiler:
+ *  constant pool (Utf8, Integer, Class, NameAndType, Methodref, InterfaceMethodref), methods with a Code attribute.
+ *  Class file version 49 is emitted on purpose: its verifier infers types itself, so no StackMapTable is required.
+ */
+class ClassWriter {
+    private static final int VERSION = 49;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_STATIC = 0x0008;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+
+    private ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private DataOutputStream pool = new DataOutputStream(poolBytes);
+    private Map<String, Integer> poolIndex = new HashMap<>();
+    private int poolCount = 1;
+    private List<byte[]> methods = new ArrayList<>();
+
+    /**
+     *  share identical constant pool entries, key describes the entry
+     */
+    private int entry(String key, int tag, int a, int b, String utf8) {
+        Integer idx = poolIndex.get(key);
+        if (idx != null) {
+            return idx;
+        }
+        try {
+            pool.writeByte(tag);
+            if (tag == CONSTANT_UTF8) {
+                pool.writeUTF(utf8);
+            } else if (tag == CONSTANT_INTEGER) {
+                pool.writeInt(a);
+            } else if (tag == CONSTANT_CLASS) {
+                pool.writeShort(a);
+            } else {
+                pool.writeShort(a);
+                pool.writeShort(b);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        poolIndex.put(key, poolCount);
+        return poolCount++;
+    }
+
+    int utf8(String s) {
+        return entry("U" + s, CONSTANT_UTF8, 0, 0, s);
+    }
+
+    int integer(int v) {
+        return entry("I" + v, CONSTANT_INTEGER, v, 0, null);
+    }
+
+    int classRef(String internalName) {
+        return entry("C" + internalName, CONSTANT_CLASS, utf8(internalName), 0, null);
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        return entry("N" + name + ":" + descriptor, CONSTANT_NAME_AND_TYPE, utf8(name), utf8(descriptor), null);
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+        return entry("M" + owner + "." + name + descriptor, CONSTANT_METHODREF, classRef(owner), nameAndType(name, descriptor), null);
+    }
+
+    int interfaceMethodRef(String owner, String name, String descriptor) {
+        return entry("IM" + owner + "." + name + descriptor, CONSTANT_INTERFACE_METHODREF, classRef(owner), nameAndType(name, descriptor), null);
+    }
+
+    /**
+     *  add method with its Code attribute (no exception table, no nested attributes)
+     */
+    void addMethod(int access, String name, String descriptor, CodeBuilder code) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        byte[] instructions = code.toByteArray();
+        try {
+            out.writeShort(access);
+            out.writeShort(utf8(name));
+            out.writeShort(utf8(descriptor));
+            out.writeShort(1);
+            out.writeShort(utf8("Code"));
+            out.writeInt(12 + instructions.length);
+            out.writeShort(code.getMaxStack());
+            out.writeShort(code.getMaxLocals());
+            out.writeInt(instructions.length);
+            out.write(instructions);
+            out.writeShort(0);
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        methods.add(bytes.toByteArray());
+    }
+
+    byte[] toByteArray(String thisName, String superName, String[] interfaces) {
+        int thisIdx = classRef(thisName);
+        int superIdx = classRef(superName);
+        int[] interfaceIdx = new int[interfaces.length];
+        for (int i = 0; i < interfaces.length; i += 1) {
+            interfaceIdx[i] = classRef(interfaces[i]);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(poolCount);
+            pool.flush();
+            out.write(poolBytes.toByteArray());
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisIdx);
+            out.writeShort(superIdx);
+            out.writeShort(interfaceIdx.length);
+            for (int idx : interfaceIdx) {
+                out.writeShort(idx);
+            }
+            out.writeShort(0);
+            out.writeShort(methods.size());
+            for (byte[] method : methods) {
+                out.write(method);
+            }
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,178 @@
+package jit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ *  Growable buffer of JVM instructions for one method
+ *  keeps track of operand stack depth (for max_stack) and patches forward branches through Label
+ */
+class CodeBuilder {
+    static final int ICONST_0 = 3;
+    static final int BIPUSH = 16;
+    static final int SIPUSH = 17;
+    static final int LDC_W = 19;
+    static final int ILOAD = 21;
+    static final int ALOAD = 25;
+    static final int ISTORE = 54;
+    static final int POP = 87;
+    static final int IADD = 96;
+    static final int ISUB = 100;
+    static final int IMUL = 104;
+    static final int INEG = 116;
+    static final int IFEQ = 153;
+    static final int IFNE = 154;
+    static final int IF_ICMPEQ = 159;
+    static final int IF_ICMPNE = 160;
+    static final int IF_ICMPLT = 161;
+    static final int IF_ICMPGE = 162;
+    static final int IF_ICMPGT = 163;
+    static final int IF_ICMPLE = 164;
+    static final int GOTO = 167;
+    static final int IRETURN = 172;
+    static final int ARETURN = 176;
+    static final int RETURN = 177;
+    static final int INVOKEVIRTUAL = 182;
+    static final int INVOKESPECIAL = 183;
+    static final int INVOKESTATIC = 184;
+    static final int INVOKEINTERFACE = 185;
+    static final int CHECKCAST = 192;
+
+    /**
+     *  branch target, position unknown until bound
+     */
+    static class Label {
+        private int position = -1;
+        private List<Integer> fixups = new ArrayList<>();
+    }
+
+    private byte[] code = new byte[64];
+    private int size;
+    private int depth;
+    private int maxStack;
+    private int maxLocals;
+
+    CodeBuilder(int maxLocals) {
+        this.maxLocals = maxLocals;
+    }
+
+    private void put(int b) {
+        if (size == code.length) {
+            code = Arrays.copyOf(code, size * 2);
+        }
+        code[size++] = (byte) b;
+    }
+
+    private void putShort(int s) {
+        put(s >> 8);
+        put(s);
+    }
+
+    private void effect(int delta) {
+        depth += delta;
+        maxStack = Math.max(maxStack, depth);
+    }
+
+    /**
+     *  instruction without operand, delta is its effect on the operand stack depth
+     */
+    void op(int opcode, int delta) {
+        put(opcode);
+        effect(delta);
+    }
+
+    /**
+     *  instruction with a 2-byte constant pool index operand
+     */
+    void op(int opcode, int index, int delta) {
+        put(opcode);
+        putShort(index);
+        effect(delta);
+    }
+
+    void invokeInterface(int index, int argSlots, int delta) {
+        put(INVOKEINTERFACE);
+        putShort(index);
+        put(argSlots);
+        put(0);
+        effect(delta);
+    }
+
+    void pushInt(int v, ClassWriter cw) {
+        if (v >= -1 && v <= 5) {
+            op(ICONST_0 + v, 1);
+        } else if (v >= Byte.MIN_VALUE && v <= Byte.MAX_VALUE) {
+            put(BIPUSH);
+            put(v);
+            effect(1);
+        } else if (v >= Short.MIN_VALUE && v <= Short.MAX_VALUE) {
+            put(SIPUSH);
+            putShort(v);
+            effect(1);
+        } else {
+            op(LDC_W, cw.integer(v), 1);
+        }
+    }
+
+    /**
+     *  local variable instruction (ILOAD/ISTORE/ALOAD), index below 256
+     */
+    void local(int opcode, int index) {
+        put(opcode);
+        put(index);
+        effect(opcode == ISTORE ? -1 : 1);
+        maxLocals = Math.max(maxLocals, index + 1);
+    }
+
+    /**
+     *  branch instruction to label, delta is its effect on the operand stack depth
+     */
+    void jump(int opcode, Label label, int delta) {
+        int at = size;
+        put(opcode);
+        if (label.position >= 0) {
+            putShort(label.position - at);
+        } else {
+            label.fixups.add(at);
+            putShort(0);
+        }
+        effect(delta);
+    }
+
+    void bind(Label label) {
+        label.position = size;
+        for (int at : label.fixups) {
+            int offset = size - at;
+            code[at+1] = (byte) (offset >> 8);
+            code[at+2] = (byte) offset;
+        }
+    }
+
+    /**
+     *  stack depth is not linear across branches: callers restore it at join points
+     */
+    int getDepth() {
+        return depth;
+    }
+
+    void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int getMaxStack() {
+        return maxStack;
+    }
+
+    int getMaxLocals() {
+        return maxLocals;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(code, size);
+    }
+}
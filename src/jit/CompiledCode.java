@@ -0,0 +1,13 @@
+package jit;
+
+import exception.ZeroDivisionError;
+
+import java.util.List;
+
+/**
+ *  Entry point implemented by every hidden class generated by FunctionCompiler:
+ *  unboxes the Integer arguments, runs the compiled static method and boxes its int result
+ */
+public interface CompiledCode {
+    Object invoke(List<Object> args) throws ZeroDivisionError;
+}
@@ -0,0 +1,62 @@
+package jit;
+
+import entity.Frame;
+import exception.ZeroDivisionError;
+
+import java.util.List;
+
+/**
+ *  Result of compiling a user function (along with the functions it calls) into a hidden class.
+ *  Compiled code is only valid under the assumptions made at compile time, checked on every entry:
+ *     - every argument is an int
+ *     - every function called from compiled code is still bound to the same declaration in the defining frame
+ *  when any of them breaks, the call falls back to the Interpreter.
+ */
+public class CompiledFunction {
+    /**
+     *  returned when assumptions do not hold and the caller has to interpret the call
+     */
+    public static final Object DEOPTIMIZED = new Object();
+
+    private final CompiledCode code;
+    private final int arity;
+    private final int[] guardSlots;
+    private final Object[] guardValues;
+    private int failures;
+
+    CompiledFunction(CompiledCode code, int arity, int[] guardSlots, Object[] guardValues) {
+        this.code = code;
+        this.arity = arity;
+        this.guardSlots = guardSlots;
+        this.guardValues = guardValues;
+    }
+
+    /**
+     *  parent is the frame the function is declared in
+     */
+    public Object invoke(Frame parent, List<Object> vals) throws ZeroDivisionError {
+        if (vals.size() != arity) {
+            return fail();
+        }
+        for (int i = 0; i < arity; i += 1) {
+            if (!(vals.get(i) instanceof Integer)) {
+                return fail();
+            }
+        }
+        for (int i = 0; i < guardSlots.length; i += 1) {
+            if (parent.get(guardSlots[i]) != guardValues[i]) {
+                return fail();
+            }
+        }
+        return code.invoke(vals);
+    }
+
+    private Object fail() {
+        failures += 1;
+        return DEOPTIMIZED;
+    }
+
+    public int getFailures() {
+        return failures;
+    }
+}
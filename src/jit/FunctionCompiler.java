@@ -0,0 +1,415 @@
+package jit;
+
+import component.*;
+import entity.Closure;
+import entity.Frame;
+import entity.MemoCache;
+import entity.Scope;
+import node.BinaryNode;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ *  Compiles a user function, together with every function it calls, into one hidden JVM class.
+ *  Only the pure int subset of the language is accepted, anything else leaves the function to the Interpreter:
+ *     - parameters and locals are int, locals must be definitely assigned before being read
+ *     - statements: assignment, if-else, while, return, function call
+ *     - expressions: int constant, local variable, "+", "-", "*", "/" and unary "+/-", function call
+ *     - comparisons and True/False only as predicate of if/while
+ *     - callees are functions declared in the same frame as the compiled function
+ *     - value of every function is the value of the last statement executed (return/call, or if-else ending with them)
+ *  each function becomes a static method m<i>(I..I)I, m0 being the compiled function itself,
+ *  so that recursive and mutually recursive calls are plain invokestatic instructions.
+ */
+class FunctionCompiler {
+    private static final String CODE_INTERFACE = "jit/CompiledCode";
+    private static final String RUNTIME = "jit/JitRuntime";
+
+    /**
+     *  thrown when a construct falls outside of the compilable subset
+     */
+    private static class Unsupported extends RuntimeException {
+        private Unsupported(String reason) {
+            super(reason, null, false, false);
+        }
+    }
+
+    private final Scope definingScope;
+    private final Frame parentFrame;
+    private final String className;
+    private final ClassWriter cw = new ClassWriter();
+    private final List<AST> unit = new ArrayList<>();
+    private final Map<AST, Integer> methodIndex = new IdentityHashMap<>();
+    private final Map<Integer, Object> guards = new LinkedHashMap<>();
+
+    // state of the method being generated
+    private CodeBuilder code;
+    // method being compiled and its entry, target of self tail calls
+    private int current;
+    private CodeBuilder.Label entry;
+    private Set<Integer> assigned;
+
+    private FunctionCompiler(Scope definingScope, Frame parentFrame, String name) {
+        this.definingScope = definingScope;
+        this.parentFrame = parentFrame;
+        this.className = "jit/Compiled_" + name;
+    }
+
+    /**
+     *  client method
+     *  parent is the frame function is declared in, return null when function can not be compiled
+     */
+    static CompiledFunction compile(AST function, Frame parent) {
+        FunctionCompiler compiler = new FunctionCompiler(scopeOf(function).getParent(), parent, nameOf(function));
+        try {
+            return compiler.compileUnit(function);
+        } catch (Unsupported e) {
+            return null;
+        }
+    }
+
+    private CompiledFunction compileUnit(AST entry) {
+        methodIndex(entry);
+        for (int i = 0; i < unit.size(); i += 1) {
+            compileMethod(i, unit.get(i));
+        }
+        int arity = paramsOf(entry).size();
+        compileConstructor();
+        compileBridge(arity);
+
+        byte[] bytes = cw.toByteArray(className, "java/lang/Object", new String[] {CODE_INTERFACE});
+        CompiledCode code;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            code = (CompiledCode) lookup.lookupClass().getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new Unsupported(e.toString());
+        }
+
+        int[] guardSlots = new int[guards.size()];
+        Object[] guardValues = new Object[guards.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Object> guard : guards.entrySet()) {
+            guardSlots[i] = guard.getKey();
+            guardValues[i] = guard.getValue();
+            i += 1;
+        }
+        return new CompiledFunction(code, arity, guardSlots, guardValues);
+    }
+
+    /**
+     *  index of the static method generated for function, scheduling it for compilation on first request
+     */
+    private int methodIndex(AST function) {
+        Integer idx = methodIndex.get(function);
+        if (idx == null) {
+            idx = unit.size();
+            unit.add(function);
+            methodIndex.put(function, idx);
+        }
+        return idx;
+    }
+
+    private static String descriptor(int arity) {
+        StringBuilder sb = new StringBuilder("(");
+        for (int i = 0; i < arity; i += 1) {
+            sb.append('I');
+        }
+        return sb.append(")I").toString();
+    }
+
+    /**
+     *  static int m<idx>(int ...): locals share slot numbers with the Scope of the function
+     */
+    private void compileMethod(int idx, AST function) {
+        Scope scope = scopeOf(function);
+        List<AST> params = paramsOf(function);
+        if (scope.getParent() != definingScope || scope.size() > 255) {
+            throw new Unsupported("scope");
+        }
+        code = new CodeBuilder(scope.size());
+        assigned = new HashSet<>();
+        for (int i = 0; i < params.size(); i += 1) {
+            if (((VarAST) params.get(i)).getSlot() != i) {
+                throw new Unsupported("duplicated parameter");
+            }
+            assigned.add(i);
+        }
+        current = idx;
+        entry = new CodeBuilder.Label();
+        code.bind(entry);
+        valuedBlock(bodyOf(function));
+        code.op(CodeBuilder.IRETURN, -1);
+        if (code.size() > Short.MAX_VALUE) {
+            throw new Unsupported("method too large");
+        }
+        cw.addMethod(ClassWriter.ACC_PUBLIC | ClassWriter.ACC_STATIC, "m" + idx, descriptor(params.size()), code);
+    }
+
+    private void compileConstructor() {
+        code = new CodeBuilder(1);
+        code.local(CodeBuilder.ALOAD, 0);
+        code.op(CodeBuilder.INVOKESPECIAL, cw.methodRef("java/lang/Object", "<init>", "()V"), -1);
+        code.op(CodeBuilder.RETURN, 0);
+        cw.addMethod(ClassWriter.ACC_PUBLIC, "<init>", "()V", code);
+    }
+
+    /**
+     *  Object invoke(List args): unbox arguments, call m0, box result
+     */
+    private void compileBridge(int arity) {
+        code = new CodeBuilder(2);
+        for (int i = 0; i < arity; i += 1) {
+            code.local(CodeBuilder.ALOAD, 1);
+            code.pushInt(i, cw);
+            code.invokeInterface(cw.interfaceMethodRef("java/util/List", "get", "(I)Ljava/lang/Object;"), 2, -1);
+            code.op(CodeBuilder.CHECKCAST, cw.classRef("java/lang/Integer"), 0);
+            code.op(CodeBuilder.INVOKEVIRTUAL, cw.methodRef("java/lang/Integer", "intValue", "()I"), 0);
+        }
+        code.op(CodeBuilder.INVOKESTATIC, cw.methodRef(className, "m0", descriptor(arity)), 1 - arity);
+        code.op(CodeBuilder.INVOKESTATIC, cw.methodRef("java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;"), 0);
+        code.op(CodeBuilder.ARETURN, -1);
+        cw.addMethod(ClassWriter.ACC_PUBLIC, "invoke", "(Ljava/util/List;)Ljava/lang/Object;", code);
+    }
+
+    /**
+     *  block whose last statement leaves the value of the block on the operand stack
+     */
+    private void valuedBlock(AST node) {
+        List<AST> stmts = ((BlockAST) node).getStmtnode();
+        if (stmts.isEmpty()) {
+            throw new Unsupported("no value");
+        }
+        for (int i = 0; i < stmts.size() - 1; i += 1) {
+            statement(stmts.get(i));
+        }
+        valued(stmts.get(stmts.size() - 1));
+    }
+
+    private void valued(AST node) {
+        if (node instanceof ReturnAST) {
+            expr(((ReturnAST) node).getExpr());
+        } else if (node instanceof FunctionCallAST) {
+            call((FunctionCallAST) node);
+        } else if (node instanceof IfStmtAST) {
+            IfStmtAST ifStmtNode = (IfStmtAST) node;
+            CodeBuilder.Label elseLabel = new CodeBuilder.Label();
+            CodeBuilder.Label endLabel = new CodeBuilder.Label();
+            condition(ifStmtNode.getPredicate(), elseLabel);
+            int depth = code.getDepth();
+            Set<Integer> before = new HashSet<>(assigned);
+            valuedBlock(ifStmtNode.getIf_body());
+            Set<Integer> afterIf = assigned;
+            code.jump(CodeBuilder.GOTO, endLabel, 0);
+            code.setDepth(depth);
+            code.bind(elseLabel);
+            assigned = before;
+            valuedBlock(ifStmtNode.getElse_body());
+            assigned.retainAll(afterIf);
+            code.bind(endLabel);
+        } else {
+            throw new Unsupported("no value");
+        }
+    }
+
+    private void block(AST node) {
+        for (AST stmt : ((BlockAST) node).getStmtnode()) {
+            statement(stmt);
+        }
+    }
+
+    /**
+     *  statement leaving the operand stack untouched
+     */
+    private void statement(AST node) {
+        if (node instanceof AssignAST) {
+            AssignAST assignNode = (AssignAST) node;
+            int slot = ((VarAST) assignNode.getVarNode()).getSlot();
+            expr(assignNode.getExprNode());
+            code.local(CodeBuilder.ISTORE, slot);
+            assigned.add(slot);
+        } else if (node instanceof ReturnAST) {
+            // leaves the method right away, code following it is unreachable
+            expr(((ReturnAST) node).getExpr());
+            code.op(CodeBuilder.IRETURN, -1);
+        } else if (node instanceof FunctionCallAST) {
+            call((FunctionCallAST) node);
+            code.op(CodeBuilder.POP, -1);
+        } else if (node instanceof IfStmtAST) {
+            IfStmtAST ifStmtNode = (IfStmtAST) node;
+            CodeBuilder.Label elseLabel = new CodeBuilder.Label();
+            CodeBuilder.Label endLabel = new CodeBuilder.Label();
+            condition(ifStmtNode.getPredicate(), elseLabel);
+            Set<Integer> before = new HashSet<>(assigned);
+            block(ifStmtNode.getIf_body());
+            Set<Integer> afterIf = assigned;
+            code.jump(CodeBuilder.GOTO, endLabel, 0);
+            code.bind(elseLabel);
+            assigned = before;
+            block(ifStmtNode.getElse_body());
+            assigned.retainAll(afterIf);
+            code.bind(endLabel);
+        } else if (node instanceof WhileStmtAST) {
+            WhileStmtAST whileStmtNode = (WhileStmtAST) node;
+            CodeBuilder.Label startLabel = new CodeBuilder.Label();
+            CodeBuilder.Label endLabel = new CodeBuilder.Label();
+            code.bind(startLabel);
+            condition(whileStmtNode.getPredicate(), endLabel);
+            Set<Integer> before = new HashSet<>(assigned);
+            block(whileStmtNode.getBody());
+            assigned = before;
+            code.jump(CodeBuilder.GOTO, startLabel, 0);
+            code.bind(endLabel);
+        } else if (node instanceof BlockAST) {
+            block(node);
+        } else {
+            throw new Unsupported(node.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     *  jump to falseLabel when predicate does not hold, fall through otherwise
+     */
+    private void condition(AST node, CodeBuilder.Label falseLabel) {
+        if (node instanceof BooleanType) {
+            if (!((BooleanType) node).getVal()) {
+                code.jump(CodeBuilder.GOTO, falseLabel, 0);
+            }
+            return;
+        }
+        if (node instanceof DoubleOpAST) {
+            DoubleOpAST doubleOpNode = (DoubleOpAST) node;
+            int jump;
+            switch (doubleOpNode.getOperatorCode()) {
+                case BinaryNode.GT: jump = CodeBuilder.IF_ICMPLE; break;
+                case BinaryNode.LT: jump = CodeBuilder.IF_ICMPGE; break;
+                case BinaryNode.GE: jump = CodeBuilder.IF_ICMPLT; break;
+                case BinaryNode.LE: jump = CodeBuilder.IF_ICMPGT; break;
+                case BinaryNode.EQ: jump = CodeBuilder.IF_ICMPNE; break;
+                case BinaryNode.NE: jump = CodeBuilder.IF_ICMPEQ; break;
+                default: jump = -1;
+            }
+            if (jump >= 0) {
+                expr(doubleOpNode.getLeftOperand());
+                expr(doubleOpNode.getRightOperand());
+                code.jump(jump, falseLabel, -2);
+                return;
+            }
+        }
+        expr(node);
+        code.jump(CodeBuilder.IFEQ, falseLabel, -1);
+    }
+
+    /**
+     *  int expression pushing exactly one value
+     */
+    private void expr(AST node) {
+        if (node instanceof NumericIntAST) {
+            code.pushInt(((NumericIntAST) node).getVal(), cw);
+        } else if (node instanceof VarAST) {
+            VarAST var = (VarAST) node;
+            if (var.getDepth() != 0 || !assigned.contains(var.getSlot())) {
+                throw new Unsupported("non-local variable " + var.getName());
+            }
+            code.local(CodeBuilder.ILOAD, var.getSlot());
+        } else if (node instanceof SingleOpAST) {
+            SingleOpAST singleOpNode = (SingleOpAST) node;
+            expr(singleOpNode.getOperand());
+            if (singleOpNode.getOperatorCode() == BinaryNode.SUB) {
+                code.op(CodeBuilder.INEG, 0);
+            }
+        } else if (node instanceof DoubleOpAST) {
+            DoubleOpAST doubleOpNode = (DoubleOpAST) node;
+            int operator = doubleOpNode.getOperatorCode();
+            if (operator != BinaryNode.ADD && operator != BinaryNode.SUB && operator != BinaryNode.MUL && operator != BinaryNode.DIV) {
+                throw new Unsupported("operator");
+            }
+            expr(doubleOpNode.getLeftOperand());
+            expr(doubleOpNode.getRightOperand());
+            if (operator == BinaryNode.ADD) {
+                code.op(CodeBuilder.IADD, -1);
+            } else if (operator == BinaryNode.SUB) {
+                code.op(CodeBuilder.ISUB, -1);
+            } else if (operator == BinaryNode.MUL) {
+                code.op(CodeBuilder.IMUL, -1);
+            } else {
+                code.pushInt(doubleOpNode.getPosition(), cw);
+                code.op(CodeBuilder.INVOKESTATIC, cw.methodRef(RUNTIME, "div", "(III)I"), -2);
+            }
+        } else if (node instanceof FunctionCallAST) {
+            call((FunctionCallAST) node);
+        } else {
+            throw new Unsupported(node.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     *  call of a closure created in the defining frame, bound to the closure seen at compile time
+     *  binding is guarded on entry of the compiled code
+     */
+    private void call(FunctionCallAST functionCallNode) {
+        VarAST var = (VarAST) functionCallNode.getVarNode();
+        List<AST> args = functionCallNode.getExprNode();
+        if (var.getDepth() != 1) {
+            throw new Unsupported("callee " + var.getName());
+        }
+        Object target = parentFrame.get(var.getSlot());
+        if (!(target instanceof Closure) || ((Closure) target).getEnv() != parentFrame) {
+            throw new Unsupported("callee " + var.getName());
+        }
+        AST function = ((Closure) target).getFunction().getNode();
+        if (MemoCache.of(function) != null) {
+            // memoized callee is answered from its cache by the engines, never inlined into compiled code
+            throw new Unsupported("memoized callee " + var.getName());
+        }
+        if (scopeOf(function) == null || scopeOf(function).getParent() != definingScope || paramsOf(function).size() != args.size()) {
+            throw new Unsupported("callee " + var.getName());
+        }
+        Object guarded = guards.get(var.getSlot());
+        if (guarded != null && guarded != target) {
+            throw new Unsupported("callee " + var.getName());
+        }
+        guards.put(var.getSlot(), target);
+        if (functionCallNode.isTailCall() && function != unit.get(current)) {
+            // left to the trampoline of the Interpreter, which runs it in constant stack
+            throw new Unsupported("tail call to " + var.getName());
+        }
+        for (AST arg : args) {
+            expr(arg);
+        }
+        if (functionCallNode.isTailCall()) {
+            // self tail call: rebind parameters and jump back to entry, code following it is unreachable
+            for (int i = args.size() - 1; i >= 0; i -= 1) {
+                code.local(CodeBuilder.ISTORE, i);
+            }
+            code.jump(CodeBuilder.GOTO, entry, 0);
+            code.setDepth(code.getDepth() + 1);
+            return;
+        }
+        int idx = methodIndex(function);
+        code.op(CodeBuilder.INVOKESTATIC, cw.methodRef(className, "m" + idx, descriptor(args.size())), 1 - args.size());
+    }
+
+    static Scope scopeOf(AST function) {
+        return function instanceof FunctionDelAST ? ((FunctionDelAST) function).getScope() : ((LambdaExprAST) function).getScope();
+    }
+
+    static List<AST> paramsOf(AST function) {
+        return function instanceof FunctionDelAST ? ((FunctionDelAST) function).getParamNode() : ((LambdaExprAST) function).getParams();
+    }
+
+    static AST bodyOf(AST function) {
+        return function instanceof FunctionDelAST ? ((FunctionDelAST) function).getBlockNode() : ((LambdaExprAST) function).getBody();
+    }
+
+    static String nameOf(AST function) {
+        return function instanceof FunctionDelAST ? ((VarAST) ((FunctionDelAST) function).getVarNode()).getName() : ((LambdaExprAST) function).getName();
+    }
+}
@@ -0,0 +1,120 @@
+package jit;
+
+import component.AST;
+import component.FunctionDelAST;
+import component.LambdaExprAST;
+import entity.Frame;
+import exception.ZeroDivisionError;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ *  [Singleton]
+ *  second execution tier of user functions
+ *  jobs:
+ *     - count invocations of every FunctionDelAST/LambdaExprAST called by the Interpreter
+ *     - compile function into JVM bytecode through FunctionCompiler once it gets hot
+ *     - run compiled code while its assumptions hold, hand the call back to the Interpreter otherwise
+ */
+public class JitCompiler {
+    /**
+     *  invocations interpreted before trying to compile a function
+     */
+    public static final int THRESHOLD = 1000;
+
+    /**
+     *  entry guard failures tolerated before dropping compiled code and start counting again
+     */
+    private static final int MAX_FAILURES = 64;
+
+    /**
+     *  times a function gets compiled again after its code was dropped, it stays interpreted for good after that
+     */
+    private static final int MAX_RECOMPILES = 3;
+
+    /**
+     *  placeholder for function outside of the compilable subset: arity never matches, always deoptimizes
+     */
+    private static final CompiledFunction NOT_COMPILABLE = new CompiledFunction(null, -1, new int[0], new Object[0]);
+
+    private static JitCompiler jit = new JitCompiler();
+
+    // number of times compiled code of each function has been dropped
+    private final Map<AST, Integer> drops = new IdentityHashMap<>();
+
+    private JitCompiler() {}
+
+    public static JitCompiler getJit() { return jit; }
+
+    /**
+     *  client method
+     *  parent is the frame function is declared in
+     *  return CompiledFunction.DEOPTIMIZED when the call has to be interpreted
+     */
+    public Object invoke(AST function, Frame parent, List<Object> vals) throws ZeroDivisionError {
+        CompiledFunction compiled = getJitCode(function);
+        if (compiled == null) {
+            if (countInvocation(function) < THRESHOLD) {
+                return CompiledFunction.DEOPTIMIZED;
+            }
+            compiled = FunctionCompiler.compile(function, parent);
+            if (compiled == null) {
+                compiled = NOT_COMPILABLE;
+            }
+            setJitCode(function, compiled);
+        }
+        Object res = compiled.invoke(parent, vals);
+        if (res == CompiledFunction.DEOPTIMIZED && compiled != NOT_COMPILABLE && compiled.getFailures() > MAX_FAILURES) {
+            drop(function);
+        }
+        return res;
+    }
+
+    /**
+     *  assumptions keep failing (e.g. callee re-bound, argument no longer int): go back to interpreting and profiling,
+     *  each drop doubling the invocations needed before compiling again, until function is given up on
+     */
+    private void drop(AST function) {
+        int times = drops.merge(function, 1, Integer::sum);
+        if (times > MAX_RECOMPILES) {
+            setJitCode(function, NOT_COMPILABLE);
+            return;
+        }
+        setJitCode(function, null);
+        setInvocations(function, THRESHOLD - (THRESHOLD << times));
+    }
+
+    private int countInvocation(AST function) {
+        if (function instanceof FunctionDelAST) {
+            FunctionDelAST functionDelNode = (FunctionDelAST) function;
+            functionDelNode.setInvocations(functionDelNode.getInvocations() + 1);
+            return functionDelNode.getInvocations();
+        } else {
+            LambdaExprAST lambdaExprNode = (LambdaExprAST) function;
+            lambdaExprNode.setInvocations(lambdaExprNode.getInvocations() + 1);
+            return lambdaExprNode.getInvocations();
+        }
+    }
+
+    private CompiledFunction getJitCode(AST function) {
+        return function instanceof FunctionDelAST ? ((FunctionDelAST) function).getJitCode() : ((LambdaExprAST) function).getJitCode();
+    }
+
+    private void setJitCode(AST function, CompiledFunction compiled) {
+        if (function instanceof FunctionDelAST) {
+            ((FunctionDelAST) function).setJitCode(compiled);
+        } else {
+            ((LambdaExprAST) function).setJitCode(compiled);
+        }
+    }
+
+    private void setInvocations(AST function, int invocations) {
+        if (function instanceof FunctionDelAST) {
+            ((FunctionDelAST) function).setInvocations(invocations);
+        } else {
+            ((LambdaExprAST) function).setInvocations(invocations);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package jit;
+
+import entity.Lexer;
+import exception.ZeroDivisionError;
+
+/**
+ *  Runtime helpers called from generated code
+ */
+public class JitRuntime {
+
+    private JitRuntime() {}
+
+    /**
+     *  int division reporting division by zero at the operator position, same as the Interpreter
+     */
+    public static int div(int left, int right, int pos) throws ZeroDivisionError {
+        if (right == 0) {
+            Lexer.getLexer().generatorErrorMsg(pos);
+            throw new ZeroDivisionError("division by zero.");
+        }
+        return left / right;
+    }
+}
@@ -0,0 +1,121 @@
+package node;
+
+import component.DoubleOpAST;
+import entity.Lexer;
+import entity.TokenType;
+import exception.ZeroDivisionError;
+
+/**
+ *  Self-specializing implementation of a DoubleOpAST operator, installed on the node by the Interpreter.
+ *  Node life cycle (Truffle-like):
+ *     uninitialized --(observe operand types)--> IntXxxNode / DoubleXxxNode --(guard failure)--> re-specialized / generic
+ *  each rewrite replaces the implementation on the owner DoubleOpAST in place, so next evaluation takes the new one.
+ */
+public abstract class BinaryNode {
+    /**
+     *  number of rewrites allowed before settling on the generic node
+     */
+    private static final int MAX_REWRITES = 4;
+
+    public static final int ADD = 0;
+    public static final int SUB = 1;
+    public static final int MUL = 2;
+    public static final int DIV = 3;
+    public static final int TRUEDIV = 4;
+    public static final int GT = 5;
+    public static final int LT = 6;
+    public static final int GE = 7;
+    public static final int LE = 8;
+    public static final int EQ = 9;
+    public static final int NE = 10;
+
+    protected final DoubleOpAST owner;
+    protected final int operator;
+    private final int rewrites;
+
+    protected BinaryNode(DoubleOpAST owner, int operator, int rewrites) {
+        this.owner = owner;
+        this.operator = operator;
+        this.rewrites = rewrites;
+    }
+
+    /**
+     *  apply operator to two evaluated operands
+     */
+    public abstract Object execute(Object left, Object right) throws ZeroDivisionError;
+
+    /**
+     *  entry for the Interpreter: node is created uninitialized the first time its owner gets evaluated
+     */
+    public static BinaryNode of(DoubleOpAST owner) {
+        BinaryNode node = owner.getSpecialization();
+        if (node == null) {
+            node = new UninitializedBinaryNode(owner, owner.getOperatorCode(), 0);
+            owner.setSpecialization(node);
+        }
+        return node;
+    }
+
+    /**
+     *  node settled in generic state from the start, for callers doing their own fast paths
+     */
+    public static BinaryNode generic(DoubleOpAST owner) {
+        return new GenericBinaryNode(owner, owner.getOperatorCode(), MAX_REWRITES);
+    }
+
+    /**
+     *  resolve operator token type once into its operator code, done by Parser when building the node
+     */
+    public static int operatorCode(TokenType type) {
+        switch (type) {
+            case PLUS: return ADD;
+            case MINUS: return SUB;
+            case MULT: return MUL;
+            case DIV: return DIV;
+            case TRUEDIV: return TRUEDIV;
+            case GT: return GT;
+            case LT: return LT;
+            case GE: return GE;
+            case LE: return LE;
+            case EQ: return EQ;
+            default: return NE;
+        }
+    }
+
+    /**
+     *  rewrite owner with a node specialized for the observed operand types
+     */
+    protected final BinaryNode specialize(Object left, Object right) {
+        BinaryNode node;
+        if (rewrites >= MAX_REWRITES) {
+            node = new GenericBinaryNode(owner, operator, rewrites);
+        } else if (left instanceof Integer && right instanceof Integer) {
+            node = IntBinaryNode.create(owner, operator, rewrites + 1);
+        } else if (isNumeric(left) && isNumeric(right)) {
+            node = DoubleBinaryNode.create(owner, operator, rewrites + 1);
+        } else {
+            node = new GenericBinaryNode(owner, operator, rewrites + 1);
+        }
+        owner.setSpecialization(node);
+        return node;
+    }
+
+    /**
+     *  guard failed: give up current specialization and evaluate through the newly installed node
+     */
+    protected final Object deoptimize(Object left, Object right) throws ZeroDivisionError {
+        return specialize(left, right).execute(left, right);
+    }
+
+    protected static boolean isNumeric(Object o) {
+        return o instanceof Integer || o instanceof Double;
+    }
+
+    /**
+     *  report division by zero at the operator of the owner node
+     */
+    protected final ZeroDivisionError divisionByZero() {
+        Lexer.getLexer().generatorErrorMsg(owner.getPosition());
+        return new ZeroDivisionError("division by zero.");
+    }
+}
@@ -0,0 +1,96 @@
+package node;
+
+import component.DoubleOpAST;
+import exception.ZeroDivisionError;
+
+/**
+ *  Operator specialized for double arithmetic: both operands numeric, at least one of them is Double
+ *  guard failure (boolean operand or two ints) deoptimizes
+ */
+public abstract class DoubleBinaryNode extends BinaryNode {
+
+    DoubleBinaryNode(DoubleOpAST owner, int operator, int rewrites) {
+        super(owner, operator, rewrites);
+    }
+
+    public final Object execute(Object left, Object right) throws ZeroDivisionError {
+        if (left instanceof Double) {
+            if (right instanceof Double) {
+                return execute((double) left, (double) right);
+            } else if (right instanceof Integer) {
+                return execute((double) left, (int) right);
+            }
+        } else if (left instanceof Integer && right instanceof Double) {
+            return execute((int) left, (double) right);
+        }
+        return deoptimize(left, right);
+    }
+
+    protected abstract Object execute(double left, double right);
+
+    static DoubleBinaryNode create(DoubleOpAST owner, int operator, int rewrites) {
+        switch (operator) {
+            case ADD: return new DoubleAddNode(owner, rewrites);
+            case SUB: return new DoubleSubNode(owner, rewrites);
+            case MUL: return new DoubleMulNode(owner, rewrites);
+            case DIV:
+            case TRUEDIV: return new DoubleDivNode(owner, operator, rewrites);
+            case GT: return new DoubleGtNode(owner, rewrites);
+            case LT: return new DoubleLtNode(owner, rewrites);
+            case GE: return new DoubleGeNode(owner, rewrites);
+            case LE: return new DoubleLeNode(owner, rewrites);
+            case EQ: return new DoubleEqNode(owner, rewrites);
+            default: return new DoubleNeNode(owner, rewrites);
+        }
+    }
+
+    static final class DoubleAddNode extends DoubleBinaryNode {
+        DoubleAddNode(DoubleOpAST owner, int rewrites) { super(owner, ADD, rewrites); }
+        protected Object execute(double left, double right) { return left + right; }
+    }
+
+    static final class DoubleSubNode extends DoubleBinaryNode {
+        DoubleSubNode(DoubleOpAST owner, int rewrites) { super(owner, SUB, rewrites); }
+        protected Object execute(double left, double right) { return left - right; }
+    }
+
+    static final class DoubleMulNode extends DoubleBinaryNode {
+        DoubleMulNode(DoubleOpAST owner, int rewrites) { super(owner, MUL, rewrites); }
+        protected Object execute(double left, double right) { return left * right; }
+    }
+
+    static final class DoubleDivNode extends DoubleBinaryNode {
+        DoubleDivNode(DoubleOpAST owner, int operator, int rewrites) { super(owner, operator, rewrites); }
+        protected Object execute(double left, double right) { return left / right; }
+    }
+
+    static final class DoubleGtNode extends DoubleBinaryNode {
+        DoubleGtNode(DoubleOpAST owner, int rewrites) { super(owner, GT, rewrites); }
+        protected Object execute(double left, double right) { return left > right; }
+    }
+
+    static final class DoubleLtNode extends DoubleBinaryNode {
+        DoubleLtNode(DoubleOpAST owner, int rewrites) { super(owner, LT, rewrites); }
+        protected Object execute(double left, double right) { return left < right; }
+    }
+
+    static final class DoubleGeNode extends DoubleBinaryNode {
+        DoubleGeNode(DoubleOpAST owner, int rewrites) { super(owner, GE, rewrites); }
+        protected Object execute(double left, double right) { return left >= right; }
+    }
+
+    static final class DoubleLeNode extends DoubleBinaryNode {
+        DoubleLeNode(DoubleOpAST owner, int rewrites) { super(owner, LE, rewrites); }
+        protected Object execute(double left, double right) { return left <= right; }
+    }
+
+    static final class DoubleEqNode extends DoubleBinaryNode {
+        DoubleEqNode(DoubleOpAST owner, int rewrites) { super(owner, EQ, rewrites); }
+        protected Object execute(double left, double right) { return left == right; }
+    }
+
+    static final class DoubleNeNode extends DoubleBinaryNode {
+        DoubleNeNode(DoubleOpAST owner, int rewrites) { super(owner, NE, rewrites); }
+        protected Object execute(double left, double right) { return left != right; }
+    }
+}
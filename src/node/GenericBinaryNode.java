@@ -0,0 +1,84 @@
+package node;
+
+import component.DoubleOpAST;
+import exception.ZeroDivisionError;
+
+/**
+ *  Final state of an operator whose operand types keep changing:
+ *  do type converting for two operands (True to 1, False to 0) on every evaluation, never rewrites again
+ */
+public class GenericBinaryNode extends BinaryNode {
+
+    GenericBinaryNode(DoubleOpAST owner, int operator, int rewrites) {
+        super(owner, operator, rewrites);
+    }
+
+    public Object execute(Object leftOperand, Object rightOperand) throws ZeroDivisionError {
+        if (leftOperand instanceof Double || rightOperand instanceof Double) {
+            return double_ops(toDouble(leftOperand), toDouble(rightOperand));
+        } else {
+            return int_ops(toInt(leftOperand), toInt(rightOperand));
+        }
+    }
+
+    /**
+     *  helper method converting True to 1, False to 0
+     */
+    private static int boolean_to_int(Object o) {
+        if (o.equals(true)) {
+            return 1;
+        } else {
+            return 0;
+        }
+    }
+
+    private static int toInt(Object o) {
+        return o instanceof Integer ? (int) o : boolean_to_int(o);
+    }
+
+    private static double toDouble(Object o) {
+        return o instanceof Double ? (double) o : toInt(o);
+    }
+
+    /**
+     *  do corresponding operation for two double operands
+     */
+    private Object double_ops(double left, double right) {
+        switch (operator) {
+            case MUL: return left * right;
+            case DIV:
+            case TRUEDIV: return left / right;
+            case ADD: return left + right;
+            case SUB: return left - right;
+            case GT: return left > right;
+            case LT: return left < right;
+            case GE: return left >= right;
+            case LE: return left <= right;
+            case EQ: return left == right;
+            default: return left != right;
+        }
+    }
+
+    /**
+     *  do corresponding operation for two int operands
+     */
+    private Object int_ops(int left, int right) throws ZeroDivisionError {
+        switch (operator) {
+            case MUL: return left * right;
+            case DIV:
+                if (right == 0) {
+                    throw divisionByZero();
+                }
+                return left / right;
+            case TRUEDIV: return (double) left / right;
+            case ADD: return left + right;
+            case SUB: return left - right;
+            case GT: return left > right;
+            case LT: return left < right;
+            case GE: return left >= right;
+            case LE: return left <= right;
+            case EQ: return left == right;
+            default: return left != right;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package node;
+
+import component.DoubleOpAST;
+import exception.ZeroDivisionError;
+
+/**
+ *  Operator specialized for two int operands
+ *  guard: both operands are Integer, otherwise deoptimize
+ */
+public abstract class IntBinaryNode extends BinaryNode {
+
+    IntBinaryNode(DoubleOpAST owner, int operator, int rewrites) {
+        super(owner, operator, rewrites);
+    }
+
+    public final Object execute(Object left, Object right) throws ZeroDivisionError {
+        if (left instanceof Integer && right instanceof Integer) {
+            return execute((int) left, (int) right);
+        }
+        return deoptimize(left, right);
+    }
+
+    protected abstract Object execute(int left, int right) throws ZeroDivisionError;
+
+    static IntBinaryNode create(DoubleOpAST owner, int operator, int rewrites) {
+        switch (operator) {
+            case ADD: return new IntAddNode(owner, rewrites);
+            case SUB: return new IntSubNode(owner, rewrites);
+            case MUL: return new IntMulNode(owner, rewrites);
+            case DIV: return new IntDivNode(owner, rewrites);
+            case TRUEDIV: return new IntTrueDivNode(owner, rewrites);
+            case GT: return new IntGtNode(owner, rewrites);
+            case LT: return new IntLtNode(owner, rewrites);
+            case GE: return new IntGeNode(owner, rewrites);
+            case LE: return new IntLeNode(owner, rewrites);
+            case EQ: return new IntEqNode(owner, rewrites);
+            default: return new IntNeNode(owner, rewrites);
+        }
+    }
+
+    static final class IntAddNode extends IntBinaryNode {
+        IntAddNode(DoubleOpAST owner, int rewrites) { super(owner, ADD, rewrites); }
+        protected Object execute(int left, int right) { return left + right; }
+    }
+
+    static final class IntSubNode extends IntBinaryNode {
+        IntSubNode(DoubleOpAST owner, int rewrites) { super(owner, SUB, rewrites); }
+        protected Object execute(int left, int right) { return left - right; }
+    }
+
+    static final class IntMulNode extends IntBinaryNode {
+        IntMulNode(DoubleOpAST owner, int rewrites) { super(owner, MUL, rewrites); }
+        protected Object execute(int left, int right) { return left * right; }
+    }
+
+    static final class IntDivNode extends IntBinaryNode {
+        IntDivNode(DoubleOpAST owner, int rewrites) { super(owner, DIV, rewrites); }
+        protected Object execute(int left, int right) throws ZeroDivisionError {
+            if (right == 0) {
+                throw divisionByZero();
+            }
+            return left / right;
+        }
+    }
+
+    static final class IntTrueDivNode extends IntBinaryNode {
+        IntTrueDivNode(DoubleOpAST owner, int rewrites) { super(owner, TRUEDIV, rewrites); }
+        protected Object execute(int left, int right) { return (double) left / right; }
+    }
+
+    static final class IntGtNode extends IntBinaryNode {
+        IntGtNode(DoubleOpAST owner, int rewrites) { super(owner, GT, rewrites); }
+        protected Object execute(int left, int right) { return left > right; }
+    }
+
+    static final class IntLtNode extends IntBinaryNode {
+        IntLtNode(DoubleOpAST owner, int rewrites) { super(owner, LT, rewrites); }
+        protected Object execute(int left, int right) { return left < right; }
+    }
+
+    static final class IntGeNode extends IntBinaryNode {
+        IntGeNode(DoubleOpAST owner, int rewrites) { super(owner, GE, rewrites); }
+        protected Object execute(int left, int right) { return left >= right; }
+    }
+
+    static final class IntLeNode extends IntBinaryNode {
+        IntLeNode(DoubleOpAST owner, int rewrites) { super(owner, LE, rewrites); }
+        protected Object execute(int left, int right) { return left <= right; }
+    }
+
+    static final class IntEqNode extends IntBinaryNode {
+        IntEqNode(DoubleOpAST owner, int rewrites) { super(owner, EQ, rewrites); }
+        protected Object execute(int left, int right) { return left == right; }
+    }
+
+    static final class IntNeNode extends IntBinaryNode {
+        IntNeNode(DoubleOpAST owner, int rewrites) { super(owner, NE, rewrites); }
+        protected Object execute(int left, int right) { return left != right; }
+    }
+}
@@ -0,0 +1,18 @@
+package node;
+
+import component.DoubleOpAST;
+import exception.ZeroDivisionError;
+
+/**
+ *  Initial state of every operator: no type feedback collected yet
+ */
+public class UninitializedBinaryNode extends BinaryNode {
+
+    UninitializedBinaryNode(DoubleOpAST owner, int operator, int rewrites) {
+        super(owner, operator, rewrites);
+    }
+
+    public Object execute(Object left, Object right) throws ZeroDivisionError {
+        return specialize(left, right).execute(left, right);
+    }
+}
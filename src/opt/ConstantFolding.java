@@ -0,0 +1,130 @@
+package opt;
+
+import component.*;
+import exception.ZeroDivisionError;
+import node.BinaryNode;
+
+/**
+ *  jobs:
+ *     - fold DoubleOp/SingleOp node whose operands are all constants into a constant node
+ *     - apply algebraic identities that hold for every value the other operand may take at runtime
+ *       (e - 0, e * 1, e / 1, +e, -(-e) for numeric e; e + 0 for int e, since -0.0 + 0 is 0.0)
+ *  division whose divisor is zero is left to be reported at runtime
+ */
+public class ConstantFolding extends RewritePass {
+    // static kind of an expression
+    private static final int UNKNOWN = 0;
+    private static final int INT = 1;
+    private static final int DOUBLE = 2;
+    private static final int NUMERIC = 3;
+
+    protected AST leave(AST node) {
+        if (node instanceof DoubleOpAST) {
+            return foldDoubleOp((DoubleOpAST) node);
+        } else if (node instanceof SingleOpAST) {
+            return foldSingleOp((SingleOpAST) node);
+        }
+        return node;
+    }
+
+    private AST foldDoubleOp(DoubleOpAST doubleOpNode) {
+        AST left = doubleOpNode.getLeftOperand();
+        AST right = doubleOpNode.getRightOperand();
+        int operator = doubleOpNode.getOperatorCode();
+        if (isConstant(left) && isConstant(right)) {
+            if ((operator == BinaryNode.DIV || operator == BinaryNode.TRUEDIV) && !convertToBoolean(valueOf(right))) {
+                return doubleOpNode;
+            }
+            try {
+                return constant(BinaryNode.generic(doubleOpNode).execute(valueOf(left), valueOf(right)));
+            } catch (ZeroDivisionError e) {
+                return doubleOpNode;
+            }
+        }
+        switch (operator) {
+            case BinaryNode.ADD:
+                if (isInt(right, 0) && kindOf(left) == INT) {
+                    return left;
+                } else if (isInt(left, 0) && kindOf(right) == INT) {
+                    return right;
+                }
+                break;
+            case BinaryNode.SUB:
+                if (isInt(right, 0) && kindOf(left) != UNKNOWN) {
+                    return left;
+                }
+                break;
+            case BinaryNode.MUL:
+                if (isInt(right, 1) && kindOf(left) != UNKNOWN) {
+                    return left;
+                } else if (isInt(left, 1) && kindOf(right) != UNKNOWN) {
+                    return right;
+                }
+                break;
+            case BinaryNode.DIV:
+                if (isInt(right, 1) && kindOf(left) != UNKNOWN) {
+                    return left;
+                }
+                break;
+        }
+        return doubleOpNode;
+    }
+
+    private AST foldSingleOp(SingleOpAST singleOpNode) {
+        AST operand = singleOpNode.getOperand();
+        boolean minus = singleOpNode.getOperatorCode() == BinaryNode.SUB;
+        if (isConstant(operand)) {
+            Object val = valueOf(operand);
+            if (val instanceof Double) {
+                return constant(minus ? -(double) val : (double) val);
+            }
+            int i = val instanceof Integer ? (int) val : ((boolean) val ? 1 : 0);
+            return constant(minus ? -i : i);
+        }
+        if (!minus && kindOf(operand) != UNKNOWN) {
+            return operand;
+        }
+        if (minus && operand instanceof SingleOpAST && ((SingleOpAST) operand).getOperatorCode() == BinaryNode.SUB) {
+            AST inner = ((SingleOpAST) operand).getOperand();
+            if (kindOf(inner) != UNKNOWN) {
+                return inner;
+            }
+        }
+        return singleOpNode;
+    }
+
+    private static boolean isInt(AST node, int val) {
+        return node instanceof NumericIntAST && ((NumericIntAST) node).getVal() == val;
+    }
+
+    /**
+     *  kind of value an expression always evaluates to, UNKNOWN when it may be boolean or a function
+     */
+    private static int kindOf(AST node) {
+        if (node instanceof NumericIntAST) {
+            return INT;
+        } else if (node instanceof NumericDoubleAST) {
+            return DOUBLE;
+        } else if (node instanceof SingleOpAST) {
+            int kind = kindOf(((SingleOpAST) node).getOperand());
+            return kind == UNKNOWN ? NUMERIC : kind;
+        } else if (node instanceof DoubleOpAST) {
+            DoubleOpAST doubleOpNode = (DoubleOpAST) node;
+            int operator = doubleOpNode.getOperatorCode();
+            if (operator == BinaryNode.TRUEDIV) {
+                return DOUBLE;
+            } else if (operator > BinaryNode.TRUEDIV) {
+                return UNKNOWN;
+            }
+            int left = kindOf(doubleOpNode.getLeftOperand());
+            int right = kindOf(doubleOpNode.getRightOperand());
+            if (left == INT && right == INT) {
+                return INT;
+            } else if (left == DOUBLE || right == DOUBLE) {
+                return DOUBLE;
+            }
+            return NUMERIC;
+        }
+        return UNKNOWN;
+    }
+}
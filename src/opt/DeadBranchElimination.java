@@ -0,0 +1,60 @@
+package opt;
+
+import component.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *  jobs:
+ *     - collapse if statement whose predicate is constant into the taken branch
+ *     - drop while loop whose predicate is constant false
+ *     - splice nested blocks left behind into the enclosing block
+ *     - drop statements following a return statement in the same block, they are never reached
+ *  value of a block (value of its last statement) is kept: an empty block stays in place when it is the last statement
+ */
+public class DeadBranchElimination extends RewritePass {
+
+    protected AST leave(AST node) {
+        if (node instanceof IfStmtAST) {
+            IfStmtAST ifStmtNode = (IfStmtAST) node;
+            if (isConstant(ifStmtNode.getPredicate())) {
+                return convertToBoolean(valueOf(ifStmtNode.getPredicate())) ? ifStmtNode.getIf_body() : ifStmtNode.getElse_body();
+            }
+        } else if (node instanceof WhileStmtAST) {
+            WhileStmtAST whileStmtNode = (WhileStmtAST) node;
+            if (isConstant(whileStmtNode.getPredicate()) && !convertToBoolean(valueOf(whileStmtNode.getPredicate()))) {
+                BlockAST empty = new BlockAST();
+                empty.setStmtnode(new ArrayList<>());
+                return empty;
+            }
+        } else if (node instanceof BlockAST) {
+            flatten((BlockAST) node);
+        }
+        return node;
+    }
+
+    private void flatten(BlockAST blockNode) {
+        List<AST> stmts = blockNode.getStmtnode();
+        List<AST> flat = new ArrayList<>(stmts.size());
+        for (int i = 0; i < stmts.size(); i += 1) {
+            AST stmt = stmts.get(i);
+            if (!(stmt instanceof BlockAST)) {
+                flat.add(stmt);
+            } else if (((BlockAST) stmt).getStmtnode().isEmpty()) {
+                if (i == stmts.size() - 1) {
+                    flat.add(stmt);
+                }
+            } else {
+                flat.addAll(((BlockAST) stmt).getStmtnode());
+            }
+        }
+        for (int i = 0; i < flat.size() - 1; i += 1) {
+            if (flat.get(i) instanceof ReturnAST) {
+                flat = new ArrayList<>(flat.subList(0, i + 1));
+                break;
+            }
+        }
+        blockNode.setStmtnode(flat);
+    }
+}
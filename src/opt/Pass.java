@@ -0,0 +1,21 @@
+package opt;
+
+import component.AST;
+
+/**
+ *  One AST-to-AST transformation run by PassManager between Parser and Resolver.
+ *  A pass must keep the observable behaviour of the program (printed output, reported errors) unchanged.
+ */
+public interface Pass {
+    /**
+     *  transform the tree rooted at program node, return root of the transformed tree
+     */
+    AST run(AST root);
+
+    /**
+     *  true when the pass only looks at the subtree it is given, so that it may run on one top level statement at a time
+     */
+    default boolean isLocal() {
+        return false;
+    }
+}
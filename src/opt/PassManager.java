@@ -0,0 +1,70 @@
+package opt;
+
+import component.AST;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *  [Singleton]
+ *  jobs:
+ *     - keep the ordered list of passes (constant folding, dead branch elimination, tail call marking, purity analysis by default)
+ *     - run every registered pass over the parsed program before it gets resolved and executed
+ *     - run the local passes over a single top level statement in streaming mode
+ */
+public class PassManager {
+    private static PassManager manager = new PassManager();
+
+    private List<Pass> passes;
+
+    private PassManager() {
+        passes = new ArrayList<>();
+        register(new ConstantFolding());
+        register(new DeadBranchElimination());
+        register(new TailCallMarking());
+        register(new PurityAnalysis());
+    }
+
+    public static PassManager getManager() { return manager; }
+
+    /**
+     *  append pass to the end of pipeline
+     */
+    public void register(Pass pass) {
+        passes.add(pass);
+    }
+
+    /**
+     *  names of registered passes in order, the script cache keeps tree of one pipeline apart from another's
+     */
+    public String describe() {
+        StringBuilder sb = new StringBuilder();
+        for (Pass pass : passes) {
+            sb.append(pass.getClass().getName()).append(';');
+        }
+        return sb.toString();
+    }
+
+    /**
+     *  client method
+     */
+    public AST run(AST root) {
+        for (Pass pass : passes) {
+            root = pass.run(root);
+        }
+        return root;
+    }
+
+    /**
+     *  client method, streaming mode
+     *  whole-program passes (purity analysis) are skipped, they need every top level binding before deciding anything
+     */
+    public AST runLocal(AST stmt) {
+        for (Pass pass : passes) {
+            if (pass.isLocal()) {
+                stmt = pass.run(stmt);
+            }
+        }
+        return stmt;
+    }
+}
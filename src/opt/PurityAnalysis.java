@@ -0,0 +1,218 @@
+package opt;
+
+import component.*;
+import entity.Builtin;
+import entity.BuiltinFunctions;
+import entity.MemoCache;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ *  Effect analysis attaching a MemoCache to every pure function declared at top level of the program.
+ *  function is pure when its result depends on its arguments only:
+ *     - no nested function declaration or lambda expression
+ *     - every name read is a parameter or a local assigned on every path before the read
+ *       (reading unassigned local falls back to outer frames at runtime)
+ *     - every callee is a pure built-in function (print is not), or a pure function
+ *  names bound more than once at top level (re-declared, re-assigned) are never trusted as callee
+ *  declaration preceded by the nomemo pragma is left alone, along with functions calling it
+ *  nothing is memoized when memoization is off (-memosize=0)
+ */
+public class PurityAnalysis implements Pass {
+    // top level name -> number of bindings (def or assign)
+    private Map<String, Integer> bindings;
+    // candidate function -> names of user functions it calls
+    private Map<FunctionDelAST, Set<String>> callees;
+
+    public AST run(AST root) {
+        MemoCache.clear();
+        if (!MemoCache.isEnabled()) {
+            return root;
+        }
+        bindings = new HashMap<>();
+        callees = new LinkedHashMap<>();
+        ProgramAST programNode = (ProgramAST) root;
+        Map<String, FunctionDelAST> functions = new LinkedHashMap<>();
+        collect(programNode.getBlockNode(), functions);
+        for (FunctionDelAST function : functions.values()) {
+            if (function.isMemoizable() && bindings.get(nameOf(function)) == 1) {
+                Set<String> names = new HashSet<>();
+                if (analyze(function, names)) {
+                    callees.put(function, names);
+                }
+            }
+        }
+        // drop candidates calling an impure function until nothing changes, mutually recursive pure functions survive
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Map.Entry<FunctionDelAST, Set<String>> entry : new HashMap<>(callees).entrySet()) {
+                for (String name : entry.getValue()) {
+                    FunctionDelAST callee = functions.get(name);
+                    if (callee == null || !callees.containsKey(callee)) {
+                        callees.remove(entry.getKey());
+                        changed = true;
+                        break;
+                    }
+                }
+            }
+        }
+        for (FunctionDelAST function : callees.keySet()) {
+            function.setMemo(new MemoCache(nameOf(function)));
+        }
+        return root;
+    }
+
+    /**
+     *  count top level bindings, nested blocks of if/while share the global frame
+     */
+    private void collect(AST node, Map<String, FunctionDelAST> functions) {
+        for (AST stmt : ((BlockAST) node).getStmtnode()) {
+            if (stmt instanceof AssignAST) {
+                bindings.merge(((VarAST) ((AssignAST) stmt).getVarNode()).getName(), 1, Integer::sum);
+            } else if (stmt instanceof FunctionDelAST) {
+                bindings.merge(nameOf((FunctionDelAST) stmt), 1, Integer::sum);
+                functions.put(nameOf((FunctionDelAST) stmt), (FunctionDelAST) stmt);
+            } else if (stmt instanceof IfStmtAST) {
+                collect(((IfStmtAST) stmt).getIf_body(), functions);
+                collect(((IfStmtAST) stmt).getElse_body(), functions);
+            } else if (stmt instanceof WhileStmtAST) {
+                collect(((WhileStmtAST) stmt).getBody(), functions);
+            } else if (stmt instanceof BlockAST) {
+                collect(stmt, functions);
+            }
+        }
+    }
+
+    /**
+     *  local effects of function body, user functions called are added to names
+     */
+    private boolean analyze(FunctionDelAST function, Set<String> names) {
+        if (function.getBlockNode() instanceof LazyBlockAST) {
+            // body left unparsed (lazy mode), nothing known about it
+            return false;
+        }
+        Set<String> assigned = new HashSet<>();
+        for (AST param : function.getParamNode()) {
+            assigned.add(((VarAST) param).getName());
+        }
+        Set<String> locals = new HashSet<>(assigned);
+        declared(function.getBlockNode(), locals);
+        return block(function.getBlockNode(), assigned, locals, names) != null;
+    }
+
+    /**
+     *  every name bound in the body
+     */
+    private void declared(AST node, Set<String> locals) {
+        if (node instanceof BlockAST) {
+            for (AST stmt : ((BlockAST) node).getStmtnode()) {
+                declared(stmt, locals);
+            }
+        } else if (node instanceof AssignAST) {
+            locals.add(((VarAST) ((AssignAST) node).getVarNode()).getName());
+        } else if (node instanceof IfStmtAST) {
+            declared(((IfStmtAST) node).getIf_body(), locals);
+            declared(((IfStmtAST) node).getElse_body(), locals);
+        } else if (node instanceof WhileStmtAST) {
+            declared(((WhileStmtAST) node).getBody(), locals);
+        }
+    }
+
+    /**
+     *  names definitely assigned after the block, null when the block is impure
+     */
+    private Set<String> block(AST node, Set<String> assigned, Set<String> locals, Set<String> names) {
+        for (AST stmt : ((BlockAST) node).getStmtnode()) {
+            assigned = statement(stmt, assigned, locals, names);
+            if (assigned == null) {
+                return null;
+            }
+        }
+        return assigned;
+    }
+
+    private Set<String> statement(AST node, Set<String> assigned, Set<String> locals, Set<String> names) {
+        if (node instanceof AssignAST) {
+            if (!expr(((AssignAST) node).getExprNode(), assigned, locals, names)) {
+                return null;
+            }
+            Set<String> after = new HashSet<>(assigned);
+            after.add(((VarAST) ((AssignAST) node).getVarNode()).getName());
+            return after;
+        } else if (node instanceof IfStmtAST) {
+            IfStmtAST ifStmtNode = (IfStmtAST) node;
+            if (!expr(ifStmtNode.getPredicate(), assigned, locals, names)) {
+                return null;
+            }
+            Set<String> afterIf = block(ifStmtNode.getIf_body(), assigned, locals, names);
+            Set<String> afterElse = block(ifStmtNode.getElse_body(), assigned, locals, names);
+            if (afterIf == null || afterElse == null) {
+                return null;
+            }
+            Set<String> after = new HashSet<>(afterIf);
+            after.retainAll(afterElse);
+            return after;
+        } else if (node instanceof WhileStmtAST) {
+            WhileStmtAST whileStmtNode = (WhileStmtAST) node;
+            if (!expr(whileStmtNode.getPredicate(), assigned, locals, names) || block(whileStmtNode.getBody(), assigned, locals, names) == null) {
+                return null;
+            }
+            // body may not run at all
+            return assigned;
+        } else if (node instanceof ReturnAST) {
+            return expr(((ReturnAST) node).getExpr(), assigned, locals, names) ? assigned : null;
+        } else if (node instanceof BlockAST) {
+            return block(node, assigned, locals, names);
+        } else if (node instanceof FunctionDelAST) {
+            return null;
+        }
+        return expr(node, assigned, locals, names) ? assigned : null;
+    }
+
+    private boolean expr(AST node, Set<String> assigned, Set<String> locals, Set<String> names) {
+        if (node instanceof VarAST) {
+            return assigned.contains(((VarAST) node).getName());
+        } else if (node instanceof DoubleOpAST) {
+            return expr(((DoubleOpAST) node).getLeftOperand(), assigned, locals, names) && expr(((DoubleOpAST) node).getRightOperand(), assigned, locals, names);
+        } else if (node instanceof SingleOpAST) {
+            return expr(((SingleOpAST) node).getOperand(), assigned, locals, names);
+        } else if (node instanceof FunctionCallAST) {
+            FunctionCallAST functionCallNode = (FunctionCallAST) node;
+            String name = ((VarAST) functionCallNode.getVarNode()).getName();
+            if (locals.contains(name)) {
+                return false;
+            }
+            if (!bindings.containsKey(name)) {
+                if (!isPureBuiltin(name)) {
+                    return false;
+                }
+            } else {
+                names.add(name);
+            }
+            for (AST arg : functionCallNode.getExprNode()) {
+                if (!expr(arg, assigned, locals, names)) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (node instanceof LambdaExprAST) {
+            return false;
+        }
+        // constants
+        return node instanceof NumericIntAST || node instanceof NumericDoubleAST || node instanceof BooleanType;
+    }
+
+    private static boolean isPureBuiltin(String name) {
+        Builtin builtin = BuiltinFunctions.get(name);
+        return builtin != null && builtin.isPure();
+    }
+
+    private static String nameOf(FunctionDelAST function) {
+        return ((VarAST) function.getVarNode()).getName();
+    }
+}
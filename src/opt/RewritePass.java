@@ -0,0 +1,120 @@
+package opt;
+
+import component.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *  Base of passes rewriting the tree bottom-up:
+ *  children of each node are rewritten first, then leave() decides what replaces the node itself.
+ *  A BlockAST is always replaced by a BlockAST, since bodies of program, function, if and while are expected to be blocks.
+ */
+public abstract class RewritePass implements Pass {
+
+    public AST run(AST root) {
+        return rewrite(root);
+    }
+
+    public boolean isLocal() {
+        return true;
+    }
+
+    protected AST rewrite(AST node) {
+        if (node instanceof ProgramAST) {
+            ProgramAST programNode = (ProgramAST) node;
+            programNode.setBlockNode(rewrite(programNode.getBlockNode()));
+        } else if (node instanceof BlockAST) {
+            BlockAST blockNode = (BlockAST) node;
+            List<AST> stmts = new ArrayList<>();
+            for (AST stmt : blockNode.getStmtnode()) {
+                stmts.add(rewrite(stmt));
+            }
+            blockNode.setStmtnode(stmts);
+        } else if (node instanceof AssignAST) {
+            AssignAST assignNode = (AssignAST) node;
+            assignNode.setExprNode(rewrite(assignNode.getExprNode()));
+        } else if (node instanceof FunctionDelAST) {
+            FunctionDelAST functionDelNode = (FunctionDelAST) node;
+            functionDelNode.setBlockNode(rewrite(functionDelNode.getBlockNode()));
+        } else if (node instanceof LambdaExprAST) {
+            LambdaExprAST lambdaExprNode = (LambdaExprAST) node;
+            lambdaExprNode.setBody(rewrite(lambdaExprNode.getBody()));
+        } else if (node instanceof FunctionCallAST) {
+            FunctionCallAST functionCallNode = (FunctionCallAST) node;
+            List<AST> exprs = new ArrayList<>();
+            for (AST expr : functionCallNode.getExprNode()) {
+                exprs.add(rewrite(expr));
+            }
+            functionCallNode.setExprNode(exprs);
+        } else if (node instanceof IfStmtAST) {
+            IfStmtAST ifStmtNode = (IfStmtAST) node;
+            ifStmtNode.setPredicate(rewrite(ifStmtNode.getPredicate()));
+            ifStmtNode.setIf_body(rewrite(ifStmtNode.getIf_body()));
+            ifStmtNode.setElse_body(rewrite(ifStmtNode.getElse_body()));
+        } else if (node instanceof WhileStmtAST) {
+            WhileStmtAST whileStmtNode = (WhileStmtAST) node;
+            whileStmtNode.setPredicate(rewrite(whileStmtNode.getPredicate()));
+            whileStmtNode.setBody(rewrite(whileStmtNode.getBody()));
+        } else if (node instanceof ReturnAST) {
+            ReturnAST returnNode = (ReturnAST) node;
+            returnNode.setExpr(rewrite(returnNode.getExpr()));
+        } else if (node instanceof DoubleOpAST) {
+            DoubleOpAST doubleOpNode = (DoubleOpAST) node;
+            doubleOpNode.setLeftOperand(rewrite(doubleOpNode.getLeftOperand()));
+            doubleOpNode.setRightOperand(rewrite(doubleOpNode.getRightOperand()));
+        } else if (node instanceof SingleOpAST) {
+            SingleOpAST singleOpNode = (SingleOpAST) node;
+            singleOpNode.setOperand(rewrite(singleOpNode.getOperand()));
+        }
+        return leave(node);
+    }
+
+    /**
+     *  replacement of node whose children have been rewritten, node itself by default
+     */
+    protected AST leave(AST node) {
+        return node;
+    }
+
+    protected static boolean isConstant(AST node) {
+        return node instanceof NumericIntAST || node instanceof NumericDoubleAST || node instanceof BooleanType;
+    }
+
+    /**
+     *  boxed value of a constant node
+     */
+    protected static Object valueOf(AST node) {
+        if (node instanceof NumericIntAST) {
+            return ((NumericIntAST) node).getBoxedVal();
+        } else if (node instanceof NumericDoubleAST) {
+            return ((NumericDoubleAST) node).getBoxedVal();
+        }
+        return ((BooleanType) node).getVal();
+    }
+
+    /**
+     *  constant node holding the given value
+     */
+    protected static AST constant(Object val) {
+        if (val instanceof Integer) {
+            return new NumericIntAST((int) val);
+        } else if (val instanceof Double) {
+            return new NumericDoubleAST((double) val);
+        }
+        return new BooleanType((boolean) val);
+    }
+
+    /**
+     *  converting basic data type to boolean type, same rule as the Interpreter
+     */
+    protected static boolean convertToBoolean(Object o) {
+        if (o instanceof Boolean) {
+            return (boolean) o;
+        } else if (o instanceof Integer) {
+            return (int) o != 0;
+        } else {
+            return (double) o != 0;
+        }
+    }
+}
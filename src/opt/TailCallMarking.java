@@ -0,0 +1,64 @@
+package opt;
+
+import component.*;
+
+import java.util.List;
+
+/**
+ *  Analysis pass marking calls in tail position of function/lambda bodies:
+ *     - expression of any return statement being a call
+ *     - last statement of the body being a call, looking into branches of if statement standing last
+ *  value of a marked call is the value of the whole invocation, so engines may run it in place of the caller
+ *  calls at top level of program are never marked
+ */
+public class TailCallMarking extends RewritePass {
+
+    protected AST leave(AST node) {
+        if (node instanceof FunctionDelAST) {
+            markBody(((FunctionDelAST) node).getBlockNode());
+        } else if (node instanceof LambdaExprAST) {
+            markBody(((LambdaExprAST) node).getBody());
+        }
+        return node;
+    }
+
+    private void markBody(AST body) {
+        markReturns(body);
+        markLast(body);
+    }
+
+    /**
+     *  return statements anywhere in the body, nested function bodies excluded
+     */
+    private void markReturns(AST node) {
+        if (node instanceof BlockAST) {
+            for (AST stmt : ((BlockAST) node).getStmtnode()) {
+                markReturns(stmt);
+            }
+        } else if (node instanceof IfStmtAST) {
+            markReturns(((IfStmtAST) node).getIf_body());
+            markReturns(((IfStmtAST) node).getElse_body());
+        } else if (node instanceof WhileStmtAST) {
+            markReturns(((WhileStmtAST) node).getBody());
+        } else if (node instanceof ReturnAST && ((ReturnAST) node).getExpr() instanceof FunctionCallAST) {
+            ((FunctionCallAST) ((ReturnAST) node).getExpr()).setTailCall(true);
+        }
+    }
+
+    /**
+     *  statement whose value becomes value of the block
+     */
+    private void markLast(AST node) {
+        if (node instanceof BlockAST) {
+            List<AST> stmts = ((BlockAST) node).getStmtnode();
+            if (!stmts.isEmpty()) {
+                markLast(stmts.get(stmts.size() - 1));
+            }
+        } else if (node instanceof IfStmtAST) {
+            markLast(((IfStmtAST) node).getIf_body());
+            markLast(((IfStmtAST) node).getElse_body());
+        } else if (node instanceof FunctionCallAST) {
+            ((FunctionCallAST) node).setTailCall(true);
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package stackless;
+
+import component.*;
+import entity.Builtin;
+import entity.BuiltinFunctions;
+import entity.Closure;
+import entity.Frame;
+import entity.Function;
+import entity.InlineCache;
+import entity.FrontEnd;
+import entity.Lexer;
+import entity.MemoCache;
+import entity.Resolver;
+import entity.Source;
+import exception.NameError;
+import exception.RecursionError;
+import exception.SyntaxError;
+import exception.TypeError;
+import exception.ZeroDivisionError;
+import node.BinaryNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *  [Singleton]
+ *  execution mode keeping the control stack of the script on the heap instead of the Java thread stack
+ *  jobs:
+ *     - same front end as the tree-walking Interpreter (Lexer -> Parser -> PassManager -> Resolver)
+ *     - evaluate AST with an explicit continuation stack (pending Task) and value stack, both growing on demand,
+ *       so recursion depth of the script is bounded by memory instead of -Xss
+ *     - raise RecursionError once depth of nested calls exceeds the recursion limit
+ *     - run tail calls in place of the calling invocation, they do not count towards the limit
+ *     - answer calls of memoized functions from their caches
+ */
+public class StacklessInterpreter {
+    public static final int DEFAULT_RECURSION_LIMIT = 100000;
+
+    private static StacklessInterpreter interpreter = new StacklessInterpreter();
+    private static FrontEnd frontEnd = FrontEnd.getFrontEnd();
+    private static Lexer lexer = Lexer.getLexer();
+    private static Resolver resolver = Resolver.getResolver();
+
+    /**
+     *  pending part of the evaluation of node, phase tells which part of it comes next
+     */
+    private static class Task {
+        private AST node;
+        private int phase;
+        private Object data;
+
+        private Task(AST node, int phase) {
+            this.node = node;
+            this.phase = phase;
+        }
+    }
+
+    /**
+     *  end of a function invocation: restore frame of the caller
+     *  height is size of the value stack at the time of call
+     *  result is stored into caches of memoized functions whose call (or tail call) it completes
+     */
+    private static class CallReturn extends Task {
+        private Frame caller;
+        private int height;
+        private List<MemoCache> memos;
+        private List<Object[]> keys;
+
+        private CallReturn(Frame caller, int height) {
+            super(null, 0);
+            this.caller = caller;
+            this.height = height;
+        }
+
+        private void memoize(MemoCache memo, Object[] key) {
+            if (memos == null) {
+                memos = new ArrayList<>();
+                keys = new ArrayList<>();
+            }
+            memos.add(memo);
+            keys.add(key);
+        }
+    }
+
+    private int recursionLimit = DEFAULT_RECURSION_LIMIT;
+
+    private List<Task> control;
+    private List<Object> values;
+    private Frame frame;
+    private int depth;
+
+    private StacklessInterpreter() {}
+
+    public static StacklessInterpreter getInterpreter() { return interpreter; }
+
+    public void setRecursionLimit(int recursionLimit) {
+        this.recursionLimit = recursionLimit;
+    }
+
+    /**
+     *  client method
+     */
+    public Object interpret(Source source) throws SyntaxError, ZeroDivisionError, NameError, TypeError, RecursionError {
+        AST root = frontEnd.build(source);
+        resolver.resolve(root);
+        ProgramAST programNode = (ProgramAST) root;
+        frame = new Frame(programNode.getScope(), null);
+        BuiltinFunctions.bind(frame);
+        frame.put(((VarAST) programNode.getVarNode()).getSlot(), "CASE TEST");
+        control = new ArrayList<>();
+        values = new ArrayList<>();
+        depth = 0;
+        control.add(new Task(programNode.getBlockNode(), 0));
+        while (!control.isEmpty()) {
+            step(control.remove(control.size() - 1));
+        }
+        return null;
+    }
+
+    private void push(AST node) {
+        control.add(new Task(node, 0));
+    }
+
+    private void resume(Task task, int phase) {
+        task.phase = phase;
+        control.add(task);
+    }
+
+    private Object pop() {
+        return values.remove(values.size() - 1);
+    }
+
+    /**
+     *  run one piece of a task: either finish it leaving its value on the value stack,
+     *  or schedule itself again behind the evaluation of one of its children
+     */
+    private void step(Task task) throws ZeroDivisionError, SyntaxError, NameError, TypeError, RecursionError {
+        if (task instanceof CallReturn) {
+            CallReturn callReturn = (CallReturn) task;
+            for (int i = 0; callReturn.memos != null && i < callReturn.memos.size(); i += 1) {
+                callReturn.memos.get(i).store(callReturn.keys.get(i), values.get(values.size() - 1));
+            }
+            frame = callReturn.caller;
+            depth -= 1;
+            return;
+        }
+        AST node = task.node;
+        if (node instanceof BlockAST) {
+            stepBlock((BlockAST) node, task);
+        } else if (node instanceof AssignAST) {
+            AssignAST assignNode = (AssignAST) node;
+            if (task.phase == 0) {
+                resume(task, 1);
+                push(assignNode.getExprNode());
+            } else {
+                frame.put(((VarAST) assignNode.getVarNode()).getSlot(), pop());
+                values.add(null);
+            }
+        } else if (node instanceof FunctionDelAST) {
+            frame.put(((VarAST) ((FunctionDelAST) node).getVarNode()).getSlot(), new Closure(((FunctionDelAST) node).getFunction(), frame));
+            values.add(null);
+        } else if (node instanceof FunctionCallAST) {
+            stepFunctionCall((FunctionCallAST) node, task);
+        } else if (node instanceof IfStmtAST) {
+            IfStmtAST ifStmtNode = (IfStmtAST) node;
+            if (task.phase == 0) {
+                resume(task, 1);
+                push(ifStmtNode.getPredicate());
+            } else {
+                push(convertToBoolean(pop()) ? ifStmtNode.getIf_body() : ifStmtNode.getElse_body());
+            }
+        } else if (node instanceof WhileStmtAST) {
+            stepWhile((WhileStmtAST) node, task);
+        } else if (node instanceof ReturnAST) {
+            if (task.phase == 0) {
+                resume(task, 1);
+                push(((ReturnAST) node).getExpr());
+            } else {
+                frame.markReturned();
+            }
+        } else if (node instanceof DoubleOpAST) {
+            DoubleOpAST doubleOpNode = (DoubleOpAST) node;
+            if (task.phase == 0) {
+                // left operand gets evaluated first, then right one
+                resume(task, 1);
+                push(doubleOpNode.getRightOperand());
+                push(doubleOpNode.getLeftOperand());
+            } else {
+                Object right = pop();
+                Object left = pop();
+                values.add(BinaryNode.of(doubleOpNode).execute(left, right));
+            }
+        } else if (node instanceof SingleOpAST) {
+            SingleOpAST singleOpNode = (SingleOpAST) node;
+            if (task.phase == 0) {
+                resume(task, 1);
+                push(singleOpNode.getOperand());
+            } else {
+                values.add(singleOp(singleOpNode.getOperatorCode(), pop()));
+            }
+        } else if (node instanceof VarAST) {
+            values.add(frame.lookup((VarAST) node));
+        } else if (node instanceof NumericIntAST) {
+            values.add(((NumericIntAST) node).getBoxedVal());
+        } else if (node instanceof NumericDoubleAST) {
+            values.add(((NumericDoubleAST) node).getBoxedVal());
+        } else if (node instanceof BooleanType) {
+            values.add(((BooleanType) node).getVal());
+        } else if (node instanceof LambdaExprAST) {
+            values.add(new Closure(((LambdaExprAST) node).getFunction(), frame));
+        } else {
+            values.add(-1);
+        }
+    }
+
+    /**
+     *  Block: phase is number of statements started so far
+     *  value of the previous statement is dropped before next one starts, the last one (or the returning one) is kept
+     */
+    private void stepBlock(BlockAST blockNode, Task task) {
+        List<AST> stmts = blockNode.getStmtnode();
+        if (task.phase == 0 && stmts.isEmpty()) {
+            values.add(null);
+            return;
+        }
+        if (task.phase > 0) {
+            if (task.phase == stmts.size() || frame.hasReturned()) {
+                return;
+            }
+            pop();
+        }
+        resume(task, task.phase + 1);
+        push(stmts.get(task.phase - 1));
+    }
+
+    /**
+     *  While: phase 1 after predicate, phase 2 after body
+     */
+    private void stepWhile(WhileStmtAST whileStmtNode, Task task) {
+        if (task.phase == 1) {
+            if (convertToBoolean(pop())) {
+                resume(task, 2);
+                push(whileStmtNode.getBody());
+            } else {
+                values.add(null);
+            }
+            return;
+        }
+        if (task.phase == 2) {
+            if (frame.hasReturned()) {
+                // value of body completed with return is the value of loop
+                return;
+            }
+            pop();
+        }
+        resume(task, 1);
+        push(whileStmtNode.getPredicate());
+    }
+
+    /**
+     *  FunctionCall: callee is checked before arguments get evaluated (phase 0), called once they are on the value stack (phase 1)
+     */
+    private void stepFunctionCall(FunctionCallAST functionCallNode, Task task) throws SyntaxError, NameError, TypeError, RecursionError {
+        VarAST var = (VarAST) functionCallNode.getVarNode();
+        int site = var.getPosition();
+        List<AST> exprs = functionCallNode.getExprNode();
+        if (task.phase == 0) {
+            Object callee = frame.lookup(var);
+            if (!(callee instanceof Closure) && !(callee instanceof Builtin)) {
+                lexer.generatorErrorMsg(site);
+                throw new TypeError(var.getName() + " is not callable.");
+            }
+            task.data = callee;
+            resume(task, 1);
+            for (int i = exprs.size() - 1; i >= 0; i -= 1) {
+                push(exprs.get(i));
+            }
+            return;
+        }
+        Object[] args = values.subList(values.size() - exprs.size(), values.size()).toArray();
+        values.subList(values.size() - exprs.size(), values.size()).clear();
+        Object callee = task.data;
+        if (callee instanceof Builtin) {
+            values.add(BuiltinFunctions.invoke((Builtin) callee, args, site));
+            return;
+        }
+        Closure closure = (Closure) callee;
+        Function function = closure.getFunction();
+        InlineCache<AST> cache = functionCallNode.getCallCache();
+        AST body = cache.lookup(function);
+        if (body == null) {
+            function.prepare(args.length, site);
+            body = function.getBody();
+            cache.add(function, body);
+        }
+        MemoCache memo = function.getMemo();
+        Object cached = MemoCache.MISSING;
+        if (memo != null && MemoCache.isCacheable(args)) {
+            cached = memo.lookup(args);
+        } else {
+            memo = null;
+        }
+        int returnAt = functionCallNode.isTailCall() ? control.size() - 1 : -1;
+        while (returnAt >= 0 && !(control.get(returnAt) instanceof CallReturn)) {
+            returnAt -= 1;
+        }
+        CallReturn callReturn;
+        if (returnAt >= 0) {
+            // drop what is left of the current invocation, its CallReturn will return from the callee instead
+            callReturn = (CallReturn) control.get(returnAt);
+            control.subList(returnAt + 1, control.size()).clear();
+            values.subList(callReturn.height, values.size()).clear();
+        } else if (cached == MemoCache.MISSING) {
+            if (depth >= recursionLimit) {
+                lexer.generatorErrorMsg(site);
+                throw new RecursionError("maximum recursion depth exceeded (limit " + recursionLimit + ").");
+            }
+            depth += 1;
+            callReturn = new CallReturn(frame, values.size());
+            control.add(callReturn);
+        } else {
+            callReturn = null;
+        }
+        if (cached != MemoCache.MISSING) {
+            values.add(cached);
+            return;
+        }
+        if (memo != null) {
+            callReturn.memoize(memo, args);
+        }
+        Frame callFrame = new Frame(function.getScope(), closure.getEnv());
+        function.bind(callFrame, args);
+        frame = callFrame;
+        push(body);
+    }
+
+    /**
+     *  apply "+/-" to operand, boolean converted to int
+     */
+    private static Object singleOp(int operator, Object val) {
+        if (operator == BinaryNode.ADD) {
+            if (val instanceof Double || val instanceof Integer) {
+                return val;
+            }
+            return boolean_to_int(val);
+        }
+        if (val instanceof Double) {
+            return -(double) val;
+        }
+        return val instanceof Integer ? -(int) val : -boolean_to_int(val);
+    }
+
+    /**
+     *  helper method converting True to 1, False to 0
+     */
+    private static int boolean_to_int(Object o) {
+        if (o.equals(true)) {
+            return 1;
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     *  helper method converting basic data type to boolean type
+     */
+    private static boolean convertToBoolean(Object o) {
+        if (o instanceof Boolean) {
+            return (boolean) o;
+        } else if (o instanceof Integer) {
+            return (int) o != 0;
+        } else {
+            return (double) o != 0;
+        }
+    }
+}
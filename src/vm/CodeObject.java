@@ -0,0 +1,112 @@
+package vm;
+
+import entity.MemoCache;
+
+/**
+ *  Compiled unit produced by Compiler: the program body, a function body or a lambda body.
+ *  Besides the instructions and constant pool, source position is recorded for every instruction
+ *  so that the VirtualMachine reports errors at the same location as the tree-walking Interpreter.
+ */
+public class CodeObject {
+    private String name;
+    private String[] params;
+    private boolean lambda;
+    private int position;
+
+    private int[] code;
+    private Object[] constants;
+    private int[] positions;
+    private int maxStack;
+    private MemoCache memo;
+
+    public CodeObject(String name, String[] params, boolean lambda, int position) {
+        this.name = name;
+        this.params = params;
+        this.lambda = lambda;
+        this.position = position;
+    }
+
+    /**
+     *  install instructions once compiling is done
+     */
+    void install(int[] code, Object[] constants, int[] positions, int maxStack) {
+        this.code = code;
+        this.constants = constants;
+        this.positions = positions;
+        this.maxStack = maxStack;
+    }
+
+    /**
+     *  result cache of the pure function compiled into this code, null otherwise
+     */
+    public MemoCache getMemo() {
+        return memo;
+    }
+
+    void setMemo(MemoCache memo) {
+        this.memo = memo;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String[] getParams() {
+        return params;
+    }
+
+    public boolean isLambda() {
+        return lambda;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public int[] getCode() {
+        return code;
+    }
+
+    public Object[] getConstants() {
+        return constants;
+    }
+
+    /**
+     *  source position of each instruction, 0 for instructions that never report an error
+     */
+    public int[] getPositions() {
+        return positions;
+    }
+
+    public int getMaxStack() {
+        return maxStack;
+    }
+
+    /**
+     *  human readable listing of instructions for debugging
+     */
+    public String disassemble() {
+        StringBuffer sb = new StringBuffer("code <").append(name).append(">\n");
+        int pc = 0;
+        while (pc < code.length) {
+            int opcode = code[pc];
+            sb.append(String.format("%4d  %-14s", pc, Opcode.nameOf(opcode)));
+            if (Opcode.hasOperand(opcode)) {
+                int arg = code[pc+1];
+                sb.append(arg);
+                if (opcode <= Opcode.MAKE_FUNCTION) {
+                    sb.append(" (").append(constants[arg]).append(")");
+                }
+                pc += 2;
+            } else {
+                pc += 1;
+            }
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+
+    public String toString() {
+        return "<function " + name + ">";
+    }
+}
@@ -0,0 +1,260 @@
+package vm;
+
+import component.*;
+import node.BinaryNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ *  [Singleton]
+ *  jobs:
+ *     - lower Abstract Syntax Tree into compact bytecode (int opcodes + constant pool) for VirtualMachine
+ *     - keep evaluation order and value of each statement identical to the tree-walking Interpreter:
+ *        - every statement leaves its value in the result register of the frame (assign/def/while reset it)
+ *        - function call returns the value of the last statement executed in the body
+ */
+public class Compiler {
+    private static Compiler compiler = new Compiler();
+
+    private Compiler() {}
+
+    public static Compiler getCompiler() { return compiler; }
+
+    /**
+     *  Growable instruction buffer for a single CodeObject
+     *  keeps track of operand stack depth for sizing the stack of the frame at runtime
+     */
+    private static class Assembler {
+        private int[] code = new int[32];
+        private int[] positions = new int[32];
+        private int size;
+        private List<Object> constants = new ArrayList<>();
+        private Map<Object, Integer> pool = new HashMap<>();
+        private int depth;
+        private int maxStack;
+
+        private void ensure(int n) {
+            if (size + n > code.length) {
+                int length = Math.max(code.length * 2, size + n);
+                code = Arrays.copyOf(code, length);
+                positions = Arrays.copyOf(positions, length);
+            }
+        }
+
+        private void effect(int delta) {
+            depth += delta;
+            maxStack = Math.max(maxStack, depth);
+        }
+
+        /**
+         *  append instruction whose errors are reported at source position pos, return its pc for later patching
+         */
+        private int emitAt(int opcode, int delta, int pos) {
+            ensure(1);
+            positions[size] = pos;
+            code[size] = opcode;
+            effect(delta);
+            return size++;
+        }
+
+        private int emit(int opcode, int delta) {
+            return emitAt(opcode, delta, 0);
+        }
+
+        private int emit(int opcode, int arg, int delta, int pos) {
+            int pc = emitAt(opcode, delta, pos);
+            ensure(1);
+            code[size++] = arg;
+            return pc;
+        }
+
+        private int emit(int opcode, int arg, int delta) {
+            return emit(opcode, arg, delta, 0);
+        }
+
+        /**
+         *  reuse constant pool entry when possible
+         */
+        private int constant(Object o) {
+            Integer idx = pool.get(o);
+            if (idx == null) {
+                idx = constants.size();
+                constants.add(o);
+                pool.put(o, idx);
+            }
+            return idx;
+        }
+
+        private int position() {
+            return size;
+        }
+
+        /**
+         *  point jump instruction at pc to target
+         */
+        private void patch(int pc, int target) {
+            code[pc+1] = target;
+        }
+
+        private void install(CodeObject codeObject) {
+            codeObject.install(Arrays.copyOf(code, size), constants.toArray(), Arrays.copyOf(positions, size), maxStack);
+        }
+    }
+
+    /**
+     *  client method
+     *  compile the root of AST into the CodeObject of the whole program
+     */
+    public CodeObject compile(AST root) {
+        ProgramAST programNode = (ProgramAST) root;
+        CodeObject program = new CodeObject("<program>", new String[0], false, programNode.getPosition());
+        Assembler asm = new Assembler();
+        asm.emit(Opcode.LOAD_CONST, asm.constant("CASE TEST"), 1);
+        asm.emit(Opcode.STORE_NAME, asm.constant(((VarAST) programNode.getVarNode()).getName()), -1);
+        compileBlock(asm, programNode.getBlockNode());
+        asm.emit(Opcode.RETURN, 0);
+        asm.install(program);
+        return program;
+    }
+
+    /**
+     *  compile function or lambda body into its own CodeObject
+     */
+    private CodeObject compileFunction(String name, List<AST> params, AST body, boolean lambda, int position) {
+        String[] names = new String[params.size()];
+        for (int i = 0; i < params.size(); i += 1) {
+            names[i] = ((VarAST) params.get(i)).getName();
+        }
+        CodeObject function = new CodeObject(name, names, lambda, position);
+        Assembler asm = new Assembler();
+        compileBlock(asm, body);
+        asm.emit(Opcode.RETURN, 0);
+        asm.install(function);
+        return function;
+    }
+
+    /**
+     *  Block node: value of the block is the value of its last statement, nothing for an empty block
+     */
+    private void compileBlock(Assembler asm, AST node) {
+        List<AST> stmts = ((BlockAST) node).getStmtnode();
+        if (stmts.isEmpty()) {
+            asm.emit(Opcode.CLEAR_RESULT, 0);
+        }
+        for (AST stmt : stmts) {
+            compileStatement(asm, stmt);
+        }
+    }
+
+    /**
+     *  every statement updates the result register of the frame
+     */
+    private void compileStatement(Assembler asm, AST node) {
+        if (node instanceof AssignAST) {
+            AssignAST assignNode = (AssignAST) node;
+            compileExpr(asm, assignNode.getExprNode());
+            asm.emit(Opcode.STORE_NAME, asm.constant(((VarAST) assignNode.getVarNode()).getName()), -1);
+            asm.emit(Opcode.CLEAR_RESULT, 0);
+        } else if (node instanceof FunctionDelAST) {
+            FunctionDelAST functionDelNode = (FunctionDelAST) node;
+            VarAST var = (VarAST) functionDelNode.getVarNode();
+            CodeObject function = compileFunction(var.getName(), functionDelNode.getParamNode(), functionDelNode.getBlockNode(), false, var.getPosition());
+            function.setMemo(functionDelNode.getMemo());
+            asm.emit(Opcode.MAKE_FUNCTION, asm.constant(function), 1);
+            asm.emit(Opcode.STORE_NAME, asm.constant(var.getName()), -1);
+            asm.emit(Opcode.CLEAR_RESULT, 0);
+        } else if (node instanceof IfStmtAST) {
+            IfStmtAST ifStmtNode = (IfStmtAST) node;
+            compileExpr(asm, ifStmtNode.getPredicate());
+            int toElse = asm.emit(Opcode.JUMP_IF_FALSE, 0, -1);
+            compileBlock(asm, ifStmtNode.getIf_body());
+            int toEnd = asm.emit(Opcode.JUMP, 0, 0);
+            asm.patch(toElse, asm.position());
+            compileBlock(asm, ifStmtNode.getElse_body());
+            asm.patch(toEnd, asm.position());
+        } else if (node instanceof WhileStmtAST) {
+            WhileStmtAST whileStmtNode = (WhileStmtAST) node;
+            int start = asm.position();
+            compileExpr(asm, whileStmtNode.getPredicate());
+            int toEnd = asm.emit(Opcode.JUMP_IF_FALSE, 0, -1);
+            compileBlock(asm, whileStmtNode.getBody());
+            asm.emit(Opcode.JUMP, start, 0);
+            asm.patch(toEnd, asm.position());
+            asm.emit(Opcode.CLEAR_RESULT, 0);
+        } else if (node instanceof ReturnAST) {
+            compileExpr(asm, ((ReturnAST) node).getExpr());
+            asm.emit(Opcode.SET_RESULT, -1);
+            asm.emit(Opcode.RETURN, 0);
+        } else if (node instanceof BlockAST) {
+            compileBlock(asm, node);
+        } else {
+            compileExpr(asm, node);
+            asm.emit(Opcode.SET_RESULT, -1);
+        }
+    }
+
+    /**
+     *  every expression pushes exactly one value onto the operand stack
+     */
+    private void compileExpr(Assembler asm, AST node) {
+        if (node instanceof NumericIntAST) {
+            asm.emit(Opcode.LOAD_CONST, asm.constant(((NumericIntAST) node).getVal()), 1);
+        } else if (node instanceof NumericDoubleAST) {
+            asm.emit(Opcode.LOAD_CONST, asm.constant(((NumericDoubleAST) node).getVal()), 1);
+        } else if (node instanceof BooleanType) {
+            asm.emit(Opcode.LOAD_CONST, asm.constant(((BooleanType) node).getVal()), 1);
+        } else if (node instanceof VarAST) {
+            VarAST var = (VarAST) node;
+            asm.emit(Opcode.LOAD_NAME, asm.constant(var.getName()), 1, var.getPosition());
+        } else if (node instanceof DoubleOpAST) {
+            DoubleOpAST doubleOpNode = (DoubleOpAST) node;
+            compileExpr(asm, doubleOpNode.getLeftOperand());
+            compileExpr(asm, doubleOpNode.getRightOperand());
+            asm.emitAt(binaryOpcode(doubleOpNode.getOperatorCode()), -1, doubleOpNode.getPosition());
+        } else if (node instanceof SingleOpAST) {
+            SingleOpAST singleOpNode = (SingleOpAST) node;
+            compileExpr(asm, singleOpNode.getOperand());
+            asm.emit(singleOpNode.getOperatorCode() == BinaryNode.ADD ? Opcode.POS : Opcode.NEG, 0);
+        } else if (node instanceof FunctionCallAST) {
+            FunctionCallAST functionCallNode = (FunctionCallAST) node;
+            VarAST var = (VarAST) functionCallNode.getVarNode();
+            int site = var.getPosition();
+            asm.emit(Opcode.LOAD_CALLEE, asm.constant(var.getName()), 1, site);
+            for (AST expr : functionCallNode.getExprNode()) {
+                compileExpr(asm, expr);
+            }
+            int argc = functionCallNode.getExprNode().size();
+            asm.emit(functionCallNode.isTailCall() ? Opcode.TAIL_CALL : Opcode.CALL, argc, -argc, site);
+        } else if (node instanceof LambdaExprAST) {
+            LambdaExprAST lambdaExprNode = (LambdaExprAST) node;
+            CodeObject function = compileFunction(lambdaExprNode.getName(), lambdaExprNode.getParams(), lambdaExprNode.getBody(), true, lambdaExprNode.getPosition());
+            asm.emit(Opcode.MAKE_FUNCTION, asm.constant(function), 1);
+        } else {
+            // statement appearing at expression position has no value
+            asm.emit(Opcode.LOAD_CONST, asm.constant(-1), 1);
+        }
+    }
+
+    /**
+     *  map operator code resolved by Parser to its instruction
+     */
+    private int binaryOpcode(int operator) {
+        switch (operator) {
+            case BinaryNode.ADD: return Opcode.ADD;
+            case BinaryNode.SUB: return Opcode.SUB;
+            case BinaryNode.MUL: return Opcode.MUL;
+            case BinaryNode.DIV: return Opcode.DIV;
+            case BinaryNode.TRUEDIV: return Opcode.TRUEDIV;
+            case BinaryNode.GT: return Opcode.GT;
+            case BinaryNode.LT: return Opcode.LT;
+            case BinaryNode.GE: return Opcode.GE;
+            case BinaryNode.LE: return Opcode.LE;
+            case BinaryNode.EQ: return Opcode.EQ;
+            default: return Opcode.NE;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package vm;
+
+/**
+ *  Instruction set of the bytecode VirtualMachine.
+ *  Each instruction is one int opcode optionally followed by one int operand (marked as [arg] below).
+ *  The machine is stack based: operands are popped from and results pushed onto the operand stack of the running frame.
+ */
+public class Opcode {
+    // stack & constant pool
+    public static final int LOAD_CONST = 0;      // [const idx]   push constant
+    public static final int LOAD_NAME = 1;       // [const idx]   push value bound to name, NameError when missing
+    public static final int STORE_NAME = 2;      // [const idx]   pop value and bind it to name in the current frame
+    public static final int LOAD_CALLEE = 3;     // [const idx]   LOAD_NAME + callable checking, TypeError when not callable
+    public static final int MAKE_FUNCTION = 4;   // [const idx]   push closure of function (CodeObject) over the current frame
+
+    // arithmetic
+    public static final int ADD = 5;
+    public static final int SUB = 6;
+    public static final int MUL = 7;
+    public static final int DIV = 8;
+    public static final int TRUEDIV = 9;
+    public static final int POS = 10;
+    public static final int NEG = 11;
+
+    // comparison
+    public static final int GT = 12;
+    public static final int LT = 13;
+    public static final int GE = 14;
+    public static final int LE = 15;
+    public static final int EQ = 16;
+    public static final int NE = 17;
+
+    // control flow
+    public static final int JUMP = 18;           // [target]      unconditional jump
+    public static final int JUMP_IF_FALSE = 19;  // [target]      pop predicate, jump when it is false
+    public static final int CALL = 20;           // [argc]        pop argc arguments and callee, push result
+    public static final int SET_RESULT = 21;     //               pop value into the result register of the frame
+    public static final int CLEAR_RESULT = 22;   //               reset the result register of the frame
+    public static final int RETURN = 23;         //               leave current frame with its result register
+    public static final int TAIL_CALL = 24;      // [argc]        CALL in tail position: user function replaces the current frame
+
+    private static final String[] NAMES = new String[] {
+            "LOAD_CONST", "LOAD_NAME", "STORE_NAME", "LOAD_CALLEE", "MAKE_FUNCTION",
+            "ADD", "SUB", "MUL", "DIV", "TRUEDIV", "POS", "NEG",
+            "GT", "LT", "GE", "LE", "EQ", "NE",
+            "JUMP", "JUMP_IF_FALSE", "CALL", "SET_RESULT", "CLEAR_RESULT", "RETURN", "TAIL_CALL"
+    };
+
+    private Opcode() {}
+
+    /**
+     *  whether instruction carries an operand following the opcode
+     */
+    public static boolean hasOperand(int opcode) {
+        return opcode <= MAKE_FUNCTION || opcode == JUMP || opcode == JUMP_IF_FALSE || opcode == CALL || opcode == TAIL_CALL;
+    }
+
+    public static String nameOf(int opcode) {
+        return NAMES[opcode];
+    }
+}
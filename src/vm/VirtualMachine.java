@@ -0,0 +1,396 @@
+package vm;
+
+import entity.Builtin;
+import entity.BuiltinFunctions;
+import entity.FrontEnd;
+import entity.Lexer;
+import entity.MemoCache;
+import entity.Source;
+import exception.NameError;
+import exception.SyntaxError;
+import exception.TypeError;
+import exception.ZeroDivisionError;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ *  [Singleton]
+ *  stack-based virtual machine executing CodeObject generated by Compiler
+ *  jobs:
+ *     - interpret input program with the same semantics as the tree-walking Interpreter
+ *     - do semantic checking at runtime and report errors through Lexer.generatorErrorMsg
+ *        - checking variable existence
+ *        - checking matching between formal parameters and real parameters
+ *        - division by zero
+ */
+public class VirtualMachine {
+    private static VirtualMachine vm = new VirtualMachine();
+    private static FrontEnd frontEnd = FrontEnd.getFrontEnd();
+    private static Lexer lexer = Lexer.getLexer();
+    private static Compiler compiler = Compiler.getCompiler();
+
+    /**
+     *  Entity class used to store name-value pair, track its parent frame and hold the result register
+     */
+    private static class Frame {
+        private int level;
+        private Map<String, Object> mapping;
+        private Frame parent;
+        private Object result;
+        // set once a closure is made in this frame, which then must not be taken over by a tail call
+        private boolean captured;
+
+        private Frame(int level, Frame parent) {
+            this.level = level;
+            this.parent = parent;
+            mapping = new HashMap<>();
+        }
+
+        private void put(String name, Object val) {
+            mapping.put(name, val);
+        }
+
+        private Object lookup(String name, int pos) throws NameError {
+            Frame f = this;
+            while (f != null) {
+                Object val = f.mapping.get(name);
+                if (val != null || f.mapping.containsKey(name)) {
+                    return val;
+                }
+                f = f.parent;
+            }
+            lexer.generatorErrorMsg(pos);
+            throw new NameError("name '" + name + "' not found.");
+        }
+    }
+
+    /**
+     *  Function value made by MAKE_FUNCTION: compiled body along with the frame it was made in (captured once)
+     */
+    private static class Closure {
+        private CodeObject code;
+        private Frame env;
+
+        private Closure(CodeObject code, Frame env) {
+            this.code = code;
+            this.env = env;
+            env.captured = true;
+        }
+    }
+
+    private VirtualMachine() {}
+
+    public static VirtualMachine getVirtualMachine() { return vm; }
+
+    /**
+     *  client method
+     *  compile the parsed program into bytecode and run it in a fresh global frame
+     */
+    public Object interpret(Source source) throws SyntaxError, ZeroDivisionError, NameError, TypeError {
+        CodeObject program = compiler.compile(frontEnd.build(source));
+        Frame globalFrame = new Frame(0, null);
+        for (String function : BuiltinFunctions.names()) {
+            globalFrame.put(function, BuiltinFunctions.get(function));
+        }
+        execute(program, globalFrame);
+        return null;
+    }
+
+    /**
+     *  core loop: fetch, decode and execute instructions of code in the given frame
+     *  return the result register of the frame when RETURN is reached
+     *  TAIL_CALL of user function switches the loop over to the callee, so tail calls take constant Java stack
+     */
+    private Object execute(CodeObject code, Frame frame) throws ZeroDivisionError, SyntaxError, NameError, TypeError {
+        int[] instructions = code.getCode();
+        Object[] constants = code.getConstants();
+        Object[] stack = new Object[code.getMaxStack() + 1];
+        int sp = 0;
+        int pc = 0;
+        while (true) {
+            int opcode = instructions[pc];
+            switch (opcode) {
+                case Opcode.LOAD_CONST:
+                    stack[sp++] = constants[instructions[pc+1]];
+                    pc += 2;
+                    break;
+                case Opcode.LOAD_NAME:
+                    stack[sp++] = frame.lookup((String) constants[instructions[pc+1]], code.getPositions()[pc]);
+                    pc += 2;
+                    break;
+                case Opcode.STORE_NAME:
+                    frame.put((String) constants[instructions[pc+1]], stack[--sp]);
+                    stack[sp] = null;
+                    pc += 2;
+                    break;
+                case Opcode.LOAD_CALLEE: {
+                    String name = (String) constants[instructions[pc+1]];
+                    Object callee = frame.lookup(name, code.getPositions()[pc]);
+                    if (!(callee instanceof Closure) && !(callee instanceof Builtin)) {
+                        lexer.generatorErrorMsg(code.getPositions()[pc]);
+                        throw new TypeError(name + " is not callable.");
+                    }
+                    stack[sp++] = callee;
+                    pc += 2;
+                    break;
+                }
+                case Opcode.MAKE_FUNCTION:
+                    stack[sp++] = new Closure((CodeObject) constants[instructions[pc+1]], frame);
+                    pc += 2;
+                    break;
+                case Opcode.ADD:
+                case Opcode.SUB:
+                case Opcode.MUL:
+                case Opcode.DIV:
+                case Opcode.TRUEDIV:
+                case Opcode.GT:
+                case Opcode.LT:
+                case Opcode.GE:
+                case Opcode.LE:
+                case Opcode.EQ:
+                case Opcode.NE: {
+                    Object right = stack[--sp];
+                    Object left = stack[sp-1];
+                    stack[sp] = null;
+                    stack[sp-1] = binaryOp(opcode, left, right, code, pc);
+                    pc += 1;
+                    break;
+                }
+                case Opcode.POS: {
+                    Object val = stack[sp-1];
+                    if (!(val instanceof Double) && !(val instanceof Integer)) {
+                        stack[sp-1] = boolean_to_int(val);
+                    }
+                    pc += 1;
+                    break;
+                }
+                case Opcode.NEG: {
+                    Object val = stack[sp-1];
+                    if (val instanceof Double) {
+                        stack[sp-1] = -(double) val;
+                    } else {
+                        stack[sp-1] = val instanceof Integer ? -(int) val : -boolean_to_int(val);
+                    }
+                    pc += 1;
+                    break;
+                }
+                case Opcode.JUMP:
+                    pc = instructions[pc+1];
+                    break;
+                case Opcode.JUMP_IF_FALSE: {
+                    Object predicate = stack[--sp];
+                    stack[sp] = null;
+                    pc = convertToBoolean(predicate) ? pc + 2 : instructions[pc+1];
+                    break;
+                }
+                case Opcode.CALL: {
+                    int argc = instructions[pc+1];
+                    Object callee = stack[sp-argc-1];
+                    Object res = call(callee, stack, sp - argc, argc, frame, code.getPositions()[pc]);
+                    for (int i = sp - argc - 1; i < sp; i += 1) {
+                        stack[i] = null;
+                    }
+                    sp -= argc;
+                    stack[sp-1] = res;
+                    pc += 2;
+                    break;
+                }
+                case Opcode.TAIL_CALL: {
+                    int argc = instructions[pc+1];
+                    Object callee = stack[sp-argc-1];
+                    if (callee instanceof Closure) {
+                        Closure closure = (Closure) callee;
+                        CodeObject function = closure.code;
+                        Object[] key = memoKey(function, stack, sp - argc, argc);
+                        if (key != null) {
+                            // only the outermost call of a chain of tail calls stores its result
+                            Object res = function.getMemo().lookup(key);
+                            if (res != MemoCache.MISSING) {
+                                return res;
+                            }
+                        }
+                        frame = enter(closure, stack, sp - argc, argc, frame, true, code.getPositions()[pc]);
+                        code = function;
+                        instructions = code.getCode();
+                        constants = code.getConstants();
+                        stack = new Object[code.getMaxStack() + 1];
+                        sp = 0;
+                        pc = 0;
+                        break;
+                    }
+                    Object res = call(callee, stack, sp - argc, argc, frame, code.getPositions()[pc]);
+                    for (int i = sp - argc - 1; i < sp; i += 1) {
+                        stack[i] = null;
+                    }
+                    sp -= argc;
+                    stack[sp-1] = res;
+                    pc += 2;
+                    break;
+                }
+                case Opcode.SET_RESULT:
+                    frame.result = stack[--sp];
+                    stack[sp] = null;
+                    pc += 1;
+                    break;
+                case Opcode.CLEAR_RESULT:
+                    frame.result = null;
+                    pc += 1;
+                    break;
+                case Opcode.RETURN:
+                    return frame.result;
+                default:
+                    throw new IllegalStateException("Unknown opcode " + opcode + " at " + pc + ".");
+            }
+        }
+    }
+
+    /**
+     *  dispatch function call to built-in function or user-defined function/lambda expression
+     *  arguments are stack[base, base + argc)
+     */
+    private Object call(Object callee, Object[] stack, int base, int argc, Frame frame, int pos) throws ZeroDivisionError, SyntaxError, NameError, TypeError {
+        if (callee instanceof Builtin) {
+            Builtin builtin = (Builtin) callee;
+            switch (argc) {
+                case 0: return builtin.call0(pos);
+                case 1: return builtin.call1(stack[base], pos);
+                case 2: return builtin.call2(stack[base], stack[base + 1], pos);
+                default: return builtin.call(Arrays.copyOfRange(stack, base, base + argc), pos);
+            }
+        }
+        Closure closure = (Closure) callee;
+        CodeObject function = closure.code;
+        Object[] key = memoKey(function, stack, base, argc);
+        if (key == null) {
+            return execute(function, enter(closure, stack, base, argc, frame, false, pos));
+        }
+        Object res = function.getMemo().lookup(key);
+        if (res == MemoCache.MISSING) {
+            res = execute(function, enter(closure, stack, base, argc, frame, false, pos));
+            function.getMemo().store(key, res);
+        }
+        return res;
+    }
+
+    /**
+     *  arguments stack[base, base + argc) as cache key when function is memoized and they are all cacheable, null otherwise
+     */
+    private Object[] memoKey(CodeObject function, Object[] stack, int base, int argc) {
+        if (function.getMemo() == null || function.getParams().length != argc) {
+            return null;
+        }
+        Object[] args = Arrays.copyOfRange(stack, base, base + argc);
+        return MemoCache.isCacheable(args) ? args : null;
+    }
+
+    /**
+     *  frame of user function called from frame, parent is the environment of the closure, arguments bound to its parameters
+     *  frame of the caller is taken over when it is a tail call sharing parent with the callee and no closure captured it (reset first)
+     */
+    private Frame enter(Closure closure, Object[] stack, int base, int argc, Frame frame, boolean tail, int pos) throws SyntaxError {
+        CodeObject function = closure.code;
+        String[] params = function.getParams();
+        if (params.length != argc) {
+            if (function.isLambda()) {
+                lexer.generatorErrorMsg(function.getPosition());
+            } else {
+                lexer.generatorErrorMsg(pos);
+            }
+            throw new SyntaxError("number of formal params should match with real params, required " + params.length + ", but got " + argc + ".");
+        }
+        Frame parent = closure.env;
+        Frame callFrame;
+        if (tail && frame.parent == parent && !frame.captured) {
+            callFrame = frame;
+            callFrame.mapping.clear();
+            callFrame.result = null;
+        } else {
+            callFrame = new Frame(parent.level + 1, parent);
+        }
+        for (int i = 0; i < argc; i += 1) {
+            callFrame.put(params[i], stack[base + i]);
+        }
+        return callFrame;
+    }
+
+    /**
+     *  helper method converting True to 1, False to 0
+     */
+    private int boolean_to_int(Object o) {
+        if (o.equals(true)) {
+            return 1;
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     *  helper method converting basic data type to boolean type
+     */
+    private boolean convertToBoolean(Object o) {
+        if (o instanceof Boolean) {
+            return (boolean) o;
+        } else if (o instanceof Integer) {
+            return (int) o != 0;
+        } else {
+            return (double) o != 0;
+        }
+    }
+
+    /**
+     *  apply arithmetic/comparison instruction to two operands
+     *  int arithmetic unless one of the operands is double, boolean is treated as 1/0
+     */
+    private Object binaryOp(int opcode, Object leftOperand, Object rightOperand, CodeObject code, int pc) throws ZeroDivisionError {
+        if (leftOperand instanceof Integer && rightOperand instanceof Integer) {
+            return int_ops(opcode, (int) leftOperand, (int) rightOperand, code, pc);
+        }
+        if (leftOperand instanceof Double || rightOperand instanceof Double) {
+            double left = leftOperand instanceof Double ? (double) leftOperand : leftOperand instanceof Integer ? (int) leftOperand : boolean_to_int(leftOperand);
+            double right = rightOperand instanceof Double ? (double) rightOperand : rightOperand instanceof Integer ? (int) rightOperand : boolean_to_int(rightOperand);
+            return double_ops(opcode, left, right);
+        }
+        int left = leftOperand instanceof Integer ? (int) leftOperand : boolean_to_int(leftOperand);
+        int right = rightOperand instanceof Integer ? (int) rightOperand : boolean_to_int(rightOperand);
+        return int_ops(opcode, left, right, code, pc);
+    }
+
+    private Object int_ops(int opcode, int left, int right, CodeObject code, int pc) throws ZeroDivisionError {
+        switch (opcode) {
+            case Opcode.ADD: return left + right;
+            case Opcode.SUB: return left - right;
+            case Opcode.MUL: return left * right;
+            case Opcode.DIV:
+                if (right == 0) {
+                    lexer.generatorErrorMsg(code.getPositions()[pc]);
+                    throw new ZeroDivisionError("division by zero.");
+                }
+                return left / right;
+            case Opcode.TRUEDIV: return (double) left / right;
+            case Opcode.GT: return left > right;
+            case Opcode.LT: return left < right;
+            case Opcode.GE: return left >= right;
+            case Opcode.LE: return left <= right;
+            case Opcode.EQ: return left == right;
+            default: return left != right;
+        }
+    }
+
+    private Object double_ops(int opcode, double left, double right) {
+        switch (opcode) {
+            case Opcode.ADD: return left + right;
+            case Opcode.SUB: return left - right;
+            case Opcode.MUL: return left * right;
+            case Opcode.DIV:
+            case Opcode.TRUEDIV: return left / right;
+            case Opcode.GT: return left > right;
+            case Opcode.LT: return left < right;
+            case Opcode.GE: return left >= right;
+            case Opcode.LE: return left <= right;
+            case Opcode.EQ: return left == right;
+            default: return left != right;
+        }
+    }
+}